@@ -0,0 +1,26 @@
+package com.bridgethegap.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH benchmarks and writes results as JSON (target/jmh-result.json by
+// default) so runs can be diffed between releases. Accepts the usual JMH
+// command line, e.g.
+//   mvn -f backend/pom.xml install -DskipTests
+//   mvn -f backend/benchmarks/pom.xml compile exec:exec \
+//       -Dexec.args="-classpath %classpath com.bridgethegap.benchmarks.BenchmarkRunner ServiceBenchmark -p vendors=50000"
+public class BenchmarkRunner {
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(commandLine.getResult().orElse("target/jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.bridgethegap.benchmarks;
+
+import com.bridgethegap.util.DistanceCalculator;
+import com.bridgethegap.util.LocationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationUtilBenchmark {
+    
+    private static final double ORIGIN_LAT = 12.9716;
+    private static final double ORIGIN_LON = 77.5946;
+    
+    @Param({"10000"})
+    public int points;
+    
+    @Param({"10.0"})
+    public double radiusKm;
+    
+    private double[] latitudes;
+    private double[] longitudes;
+    private BigDecimal[] latitudeDecimals;
+    private BigDecimal[] longitudeDecimals;
+    private double[] distances;
+    private BigDecimal originLat;
+    private BigDecimal originLon;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        latitudes = new double[points];
+        longitudes = new double[points];
+        latitudeDecimals = new BigDecimal[points];
+        longitudeDecimals = new BigDecimal[points];
+        distances = new double[points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.5;
+            longitudes[i] = ORIGIN_LON + (random.nextDouble() - 0.5) * 0.5;
+            latitudeDecimals[i] = BigDecimal.valueOf(latitudes[i]);
+            longitudeDecimals[i] = BigDecimal.valueOf(longitudes[i]);
+        }
+        originLat = BigDecimal.valueOf(ORIGIN_LAT);
+        originLon = BigDecimal.valueOf(ORIGIN_LON);
+    }
+    
+    @Benchmark
+    public void calculateDistanceBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < points; i++) {
+            blackhole.consume(LocationUtil.calculateDistance(originLat, originLon,
+                                                             latitudeDecimals[i], longitudeDecimals[i]));
+        }
+    }
+    
+    @Benchmark
+    public void calculateDistanceDouble(Blackhole blackhole) {
+        for (int i = 0; i < points; i++) {
+            blackhole.consume(LocationUtil.calculateDistance(ORIGIN_LAT, ORIGIN_LON, latitudes[i], longitudes[i]));
+        }
+    }
+    
+    @Benchmark
+    public void isWithinRadiusBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < points; i++) {
+            blackhole.consume(LocationUtil.isWithinRadius(originLat, originLon,
+                                                          latitudeDecimals[i], longitudeDecimals[i], radiusKm));
+        }
+    }
+    
+    @Benchmark
+    public void isWithinRadiusCalculator(Blackhole blackhole) {
+        DistanceCalculator calculator = LocationUtil.from(ORIGIN_LAT, ORIGIN_LON);
+        for (int i = 0; i < points; i++) {
+            blackhole.consume(calculator.isWithinRadius(latitudes[i], longitudes[i], radiusKm));
+        }
+    }
+    
+    @Benchmark
+    public double[] bulkDistances() {
+        LocationUtil.from(ORIGIN_LAT, ORIGIN_LON).distancesKm(latitudes, longitudes, distances);
+        return distances;
+    }
+}
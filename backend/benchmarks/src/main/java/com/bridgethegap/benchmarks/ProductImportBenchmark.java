@@ -0,0 +1,115 @@
+package com.bridgethegap.benchmarks;
+
+import com.bridgethegap.dto.ImportResult;
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.index.ProductRankingIndex;
+import com.bridgethegap.index.ProductSearchIndex;
+import com.bridgethegap.index.SuggestionIndex;
+import com.bridgethegap.service.ProductImportService;
+import com.bridgethegap.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Inserting the same generated rows one addProduct call at a time versus one
+// bulk import. Every iteration starts from the seeded table and indexes.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ProductImportBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private SeededApplication application;
+    private JdbcTemplate jdbcTemplate;
+    private long lastSeededId;
+    private ProductService productService;
+    private ProductImportService productImportService;
+    private int vendors;
+    private Product[] products;
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication application) {
+        this.application = application;
+        jdbcTemplate = application.bean(JdbcTemplate.class);
+        lastSeededId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM products", Long.class);
+        productService = application.bean(ProductService.class);
+        productImportService = application.bean(ProductImportService.class);
+        vendors = application.vendors;
+
+        Random random = new Random(13);
+        products = new Product[rows];
+        StringBuilder builder = new StringBuilder("vendor_id,name,description,price,category\n");
+        for (int i = 0; i < rows; i++) {
+            String name = SeededApplication.WORDS[random.nextInt(SeededApplication.WORDS.length)] + " " +
+                          SeededApplication.WORDS[random.nextInt(SeededApplication.WORDS.length)];
+            String category = SeededApplication.CATEGORIES[random.nextInt(SeededApplication.CATEGORIES.length)];
+            long vendorId = 1 + random.nextInt(vendors);
+            int price = 10 + random.nextInt(1000);
+
+            Product product = new Product();
+            product.setVendorId(vendorId);
+            product.setName(name);
+            product.setDescription("Imported " + name);
+            product.setPrice(BigDecimal.valueOf(price));
+            product.setCategory(category);
+            products[i] = product;
+            builder.append(vendorId).append(',').append(name).append(",Imported ").append(name).append(',')
+                   .append(price).append(',').append(category).append('\n');
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Drops the rows the previous iteration inserted, so neither the table nor the
+    // indexes grow from one measurement to the next.
+    @Setup(Level.Iteration)
+    public void reset() {
+        if (jdbcTemplate.update("DELETE FROM products WHERE id > ?", lastSeededId) == 0) {
+            return;
+        }
+        application.bean(ProductSearchIndex.class).load();
+        application.bean(SuggestionIndex.class).load();
+        application.bean(ProductRankingIndex.class).load();
+    }
+
+    @Benchmark
+    public int addProductPerRow() {
+        for (Product product : products) {
+            Product copy = new Product();
+            copy.setVendorId(product.getVendorId());
+            copy.setName(product.getName());
+            copy.setDescription(product.getDescription());
+            copy.setPrice(product.getPrice());
+            copy.setCategory(product.getCategory());
+            productService.addProduct(copy);
+        }
+        return products.length;
+    }
+
+    @Benchmark
+    public ImportResult importProducts() throws IOException {
+        return productImportService.importProducts(new ByteArrayInputStream(csv), "csv", null);
+    }
+}
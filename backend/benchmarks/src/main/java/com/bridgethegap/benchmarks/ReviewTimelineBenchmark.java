@@ -0,0 +1,91 @@
+package com.bridgethegap.benchmarks;
+
+import com.bridgethegap.dto.CursorPage;
+import com.bridgethegap.entity.Review;
+import com.bridgethegap.service.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// "Load more" pages of one heavily reviewed product: the first page and a page
+// deep into the timeline, e.g. -p hotReviews=50000 -p pageSize=20. Timestamps
+// repeat every few reviews so the id tie-break is exercised.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReviewTimelineBenchmark {
+
+    private static final long HOT_PRODUCT_ID = 1L;
+
+    @Param({"50000"})
+    public int hotReviews;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private ReviewService reviewService;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededApplication application) {
+        reviewService = application.bean(ReviewService.class);
+        JdbcTemplate jdbcTemplate = application.bean(JdbcTemplate.class);
+
+        // Fresh users, so (user_id, product_id) stays unique against the seed
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < hotReviews; i++) {
+            rows.add(new Object[] {"Fan " + i, "fan" + i + "@bench.local", "bench", now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, password, created_at, updated_at) " +
+                                 "VALUES (?, ?, ?, ?, ?)", rows);
+        List<Long> userIds = jdbcTemplate.queryForList(
+            "SELECT id FROM users WHERE email LIKE 'fan%@bench.local' ORDER BY id", Long.class);
+
+        Random random = new Random(17);
+        long start = System.currentTimeMillis() - hotReviews * 250L;
+        rows.clear();
+        for (int i = 0; i < userIds.size(); i++) {
+            Timestamp createdAt = new Timestamp(start + (i / 4) * 1000L);
+            rows.add(new Object[] {userIds.get(i), HOT_PRODUCT_ID, 1 + random.nextInt(5), "Fan review " + i,
+                                   createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO reviews (user_id, product_id, rating, comment, created_at, " +
+                                 "updated_at) VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        CursorPage<Review> page = reviewService.getReviewsByProductIdPage(HOT_PRODUCT_ID, null, 1000);
+        for (int i = 0; i < hotReviews / 2000 && page.getNextCursor() != null; i++) {
+            page = reviewService.getReviewsByProductIdPage(HOT_PRODUCT_ID, page.getNextCursor(), 1000);
+        }
+        deepCursor = page.getNextCursor();
+    }
+
+    @Benchmark
+    public CursorPage<Review> firstPage() {
+        return reviewService.getReviewsByProductIdPage(HOT_PRODUCT_ID, null, pageSize);
+    }
+
+    @Benchmark
+    public CursorPage<Review> deepPage() {
+        return reviewService.getReviewsByProductIdPage(HOT_PRODUCT_ID, deepCursor, pageSize);
+    }
+}
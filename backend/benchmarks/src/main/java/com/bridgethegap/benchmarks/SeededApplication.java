@@ -0,0 +1,144 @@
+package com.bridgethegap.benchmarks;
+
+import com.bridgethegap.BridgeTheGapApplication;
+import com.bridgethegap.index.ProductRankingIndex;
+import com.bridgethegap.index.ProductSearchIndex;
+import com.bridgethegap.index.SuggestionIndex;
+import com.bridgethegap.index.VendorGeoIndex;
+import com.bridgethegap.service.ProductRatingService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Boots the application against an in-memory H2 database (MySQL mode) and
+// seeds synthetic vendors, products, users and reviews. Sizes are JMH params,
+// e.g. -p vendors=100000 -p products=500000 -p reviews=1000000. To run against
+// a MySQL or MariaDB server instead, pass -jvmArgsAppend
+// -Dbench.mysql.url=jdbc:mysql://host:3306/ (and bench.mysql.username and
+// bench.mysql.password if not root without one); the tables are recreated in
+// its bridgethegap_bench database.
+@State(Scope.Benchmark)
+public class SeededApplication {
+    
+    static final double CENTER_LAT = 12.9716;
+    static final double CENTER_LON = 77.5946;
+    static final String[] CATEGORIES = {"grocery", "bakery", "dairy", "vegetables", "clothing"};
+    static final String[] WORDS = {"fresh", "organic", "homemade", "spicy", "sweet", "local",
+                                   "tomato", "bread", "milk", "paneer", "saree", "mango", "rice"};
+    
+    private static final int INSERT_BATCH = 1000;
+    
+    @Param({"10000"})
+    public int vendors;
+    
+    @Param({"50000"})
+    public int products;
+    
+    @Param({"100000"})
+    public int reviews;
+    
+    public ConfigurableApplicationContext context;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        List<String> arguments = new ArrayList<>(datasourceArguments());
+        arguments.add("--spring.jpa.hibernate.ddl-auto=create");
+        arguments.add("--spring.jpa.show-sql=false");
+        arguments.add("--logging.level.com.bridgethegap=WARN");
+        arguments.add("--logging.level.org.hibernate=WARN");
+        context = new SpringApplicationBuilder(BridgeTheGapApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(new String[0]));
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(ProductRatingService.class).rebuild();
+        // Beans that index data at startup saw an empty database; reload them.
+        context.getBean(VendorGeoIndex.class).load();
+        context.getBean(ProductSearchIndex.class).load();
+        context.getBean(SuggestionIndex.class).load();
+        context.getBean(ProductRankingIndex.class).load();
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    private static List<String> datasourceArguments() {
+        String mysqlUrl = System.getProperty("bench.mysql.url");
+        if (mysqlUrl == null || mysqlUrl.isBlank()) {
+            return List.of("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                           "--spring.datasource.username=sa",
+                           "--spring.datasource.password=",
+                           "--spring.datasource.driver-class-name=org.h2.Driver",
+                           "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        }
+        return List.of("--spring.datasource.url=" + mysqlUrl + "bridgethegap_bench?createDatabaseIfNotExist=true" +
+                       "&useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true",
+                       "--spring.datasource.username=" + System.getProperty("bench.mysql.username", "root"),
+                       "--spring.datasource.password=" + System.getProperty("bench.mysql.password", ""),
+                       "--spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver",
+                       "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect");
+    }
+    
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(7);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= vendors; i++) {
+            rows.add(new Object[] {"Vendor " + i, CATEGORIES[i % CATEGORIES.length], "vendor" + i + "@bench.local",
+                                   "bench", CENTER_LAT + (random.nextDouble() - 0.5),
+                                   CENTER_LON + (random.nextDouble() - 0.5), now, now});
+        }
+        insert(jdbcTemplate, "INSERT INTO vendors (name, category, email, password, latitude, longitude, " +
+                             "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        
+        for (int i = 1; i <= products; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            rows.add(new Object[] {1 + random.nextInt(vendors), name, "A " + name + " from a local vendor",
+                                   10 + random.nextInt(1000), CATEGORIES[random.nextInt(CATEGORIES.length)],
+                                   true, now, now});
+        }
+        insert(jdbcTemplate, "INSERT INTO products (vendor_id, name, description, price, category, is_active, " +
+                             "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        
+        // Every user reviews distinct products, so (user_id, product_id) stays unique.
+        int users = Math.max(1, (reviews + products - 1) / products);
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[] {"User " + i, "user" + i + "@bench.local", "bench", now, now});
+        }
+        insert(jdbcTemplate, "INSERT INTO users (name, email, password, created_at, updated_at) " +
+                             "VALUES (?, ?, ?, ?, ?)", rows);
+        
+        for (int i = 0; i < reviews; i++) {
+            int user = 1 + i % users;
+            long product = 1 + ((long) (i / users) * 7919 + user) % products;
+            rows.add(new Object[] {user, product, 1 + random.nextInt(5), "Review " + i, now, now});
+        }
+        insert(jdbcTemplate, "INSERT INTO reviews (user_id, product_id, rating, comment, created_at, updated_at) " +
+                             "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+    
+    private void insert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + INSERT_BATCH, rows.size())));
+        }
+        rows.clear();
+    }
+}
@@ -0,0 +1,63 @@
+package com.bridgethegap.benchmarks;
+
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.entity.Vendor;
+import com.bridgethegap.service.ProductService;
+import com.bridgethegap.service.ReviewService;
+import com.bridgethegap.service.VendorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceBenchmark {
+    
+    private ProductService productService;
+    private VendorService vendorService;
+    private ReviewService reviewService;
+    private Random random;
+    private int products;
+    
+    @Setup
+    public void setUp(SeededApplication application) {
+        productService = application.bean(ProductService.class);
+        vendorService = application.bean(VendorService.class);
+        reviewService = application.bean(ReviewService.class);
+        products = application.products;
+        random = new Random(11);
+    }
+    
+    @Benchmark
+    public List<Product> searchProducts() {
+        return productService.searchProducts(SeededApplication.WORDS[random.nextInt(SeededApplication.WORDS.length)]);
+    }
+    
+    @Benchmark
+    public List<Vendor> vendorsWithinRadius() {
+        BigDecimal latitude = BigDecimal.valueOf(SeededApplication.CENTER_LAT + (random.nextDouble() - 0.5) * 0.5);
+        BigDecimal longitude = BigDecimal.valueOf(SeededApplication.CENTER_LON + (random.nextDouble() - 0.5) * 0.5);
+        return vendorService.getVendorsWithinRadius(latitude, longitude, 5.0);
+    }
+    
+    @Benchmark
+    public Double averageRatingByProductId() {
+        return reviewService.getAverageRatingByProductId(1L + random.nextInt(products));
+    }
+}
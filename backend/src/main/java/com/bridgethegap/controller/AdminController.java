@@ -5,9 +5,13 @@ import com.bridgethegap.entity.Review;
 import com.bridgethegap.entity.User;
 import com.bridgethegap.entity.Vendor;
 import com.bridgethegap.service.AdminService;
+import com.bridgethegap.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,8 +24,12 @@ public class AdminController {
     private AdminService adminService;
     
     @GetMapping("/users")
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(adminService.getAllUsersPage(after, limit));
+            }
             List<User> users = adminService.getAllUsers();
             return ResponseEntity.ok(users);
         } catch (Exception e) {
@@ -40,8 +48,12 @@ public class AdminController {
     }
     
     @GetMapping("/vendors")
-    public ResponseEntity<?> getAllVendors() {
+    public ResponseEntity<?> getAllVendors(@RequestParam(required = false) Long after,
+                                           @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(adminService.getAllVendorsPage(after, limit));
+            }
             List<Vendor> vendors = adminService.getAllVendors();
             return ResponseEntity.ok(vendors);
         } catch (Exception e) {
@@ -60,8 +72,12 @@ public class AdminController {
     }
     
     @GetMapping("/products")
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(adminService.getAllProductsPage(after, limit));
+            }
             List<Product> products = adminService.getAllProducts();
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -92,15 +108,70 @@ public class AdminController {
     @PutMapping("/vendors/{vendorId}/products/activate")
     public ResponseEntity<?> activateProductsByVendor(@PathVariable Long vendorId) {
         try {
-            return ResponseEntity.ok(adminService.activateProductsByVendor(vendorId));
+            int updated = adminService.setVendorProductsActive(vendorId, true);
+            return ResponseEntity.ok("{\"updated\":" + updated + "}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+
+    @PutMapping("/vendors/{vendorId}/products/deactivate")
+    public ResponseEntity<?> deactivateProductsByVendor(@PathVariable Long vendorId) {
+        try {
+            int updated = adminService.setVendorProductsActive(vendorId, false);
+            return ResponseEntity.ok("{\"updated\":" + updated + "}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+
+    @PutMapping("/categories/{category}/products/activate")
+    public ResponseEntity<?> activateProductsByCategory(@PathVariable String category) {
+        try {
+            int updated = adminService.setCategoryProductsActive(category, true);
+            return ResponseEntity.ok("{\"updated\":" + updated + "}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+
+    @PutMapping("/categories/{category}/products/deactivate")
+    public ResponseEntity<?> deactivateProductsByCategory(@PathVariable String category) {
+        try {
+            int updated = adminService.setCategoryProductsActive(category, false);
+            return ResponseEntity.ok("{\"updated\":" + updated + "}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+
+    @PutMapping("/products/activate")
+    public ResponseEntity<?> activateProducts(@RequestBody List<Long> productIds) {
+        try {
+            int updated = adminService.setProductsActive(productIds, true);
+            return ResponseEntity.ok("{\"updated\":" + updated + "}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+
+    @PutMapping("/products/deactivate")
+    public ResponseEntity<?> deactivateProducts(@RequestBody List<Long> productIds) {
+        try {
+            int updated = adminService.setProductsActive(productIds, false);
+            return ResponseEntity.ok("{\"updated\":" + updated + "}");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
     
     @GetMapping("/reviews")
-    public ResponseEntity<?> getAllReviews() {
+    public ResponseEntity<?> getAllReviews(@RequestParam(required = false) Long after,
+                                           @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(adminService.getAllReviewsPage(after, limit));
+            }
             List<Review> reviews = adminService.getAllReviews();
             return ResponseEntity.ok(reviews);
         } catch (Exception e) {
@@ -108,6 +179,57 @@ public class AdminController {
         }
     }
     
+    // Recomputes product_ratings from the reviews table, and vendor_ratings from those, for drift repair.
+    @PostMapping("/ratings/rebuild")
+    public ResponseEntity<?> rebuildProductRatings() {
+        try {
+            adminService.rebuildProductRatings();
+            return ResponseEntity.ok("{\"message\":\"Product and vendor ratings rebuilt successfully\"}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
+    // Streams every row of users, vendors, products or reviews as NDJSON or CSV,
+    // optionally gzipped, instead of building the whole list in memory.
+    @GetMapping("/export/{entity}")
+    public ResponseEntity<?> exportData(@PathVariable String entity,
+                                        @RequestParam(defaultValue = "ndjson") String format,
+                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            StreamingResponseBody body = adminService.exportData(entity, format, gzip);
+            String filename = entity.toLowerCase() + "." + format.toLowerCase() + (gzip ? ".gz" : "");
+            MediaType contentType = MediaType.parseMediaType(
+                gzip ? "application/gzip" : ExportService.contentType(format));
+            return ResponseEntity.ok()
+                    .contentType(contentType)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
+    @GetMapping("/cache-stats")
+    public ResponseEntity<?> getCacheStats() {
+        try {
+            return ResponseEntity.ok(adminService.getCacheStats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
+    // Bulk moderation; the body is the list of review ids.
+    @PostMapping("/reviews/delete")
+    public ResponseEntity<?> deleteReviews(@RequestBody List<Long> reviewIds) {
+        try {
+            int deleted = adminService.deleteReviews(reviewIds);
+            return ResponseEntity.ok("{\"deleted\":" + deleted + "}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
     @DeleteMapping("/reviews/{reviewId}")
     public ResponseEntity<?> deleteReview(@PathVariable Long reviewId) {
         try {
@@ -1,11 +1,17 @@
 package com.bridgethegap.controller;
 
+import com.bridgethegap.dto.CursorPage;
+import com.bridgethegap.dto.ImportResult;
+import com.bridgethegap.dto.NearbyProduct;
 import com.bridgethegap.entity.Product;
+import com.bridgethegap.service.ProductImportService;
 import com.bridgethegap.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -13,9 +19,14 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:3000")
 public class ProductController {
     
+    private static final int DEFAULT_POPULAR_LIMIT = 50;
+    
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductImportService productImportService;
+    
     @PostMapping
     public ResponseEntity<?> addProduct(@RequestBody Product product) {
         try {
@@ -26,11 +37,34 @@ public class ProductController {
         }
     }
     
+    // Body is the raw CSV (with a header row) or NDJSON upload.
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(@RequestParam(required = false) Long vendorId,
+                                            @RequestParam(defaultValue = "csv") String format,
+                                            InputStream body) {
+        try {
+            ImportResult result = productImportService.importProducts(body, format, vendorId);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
     @GetMapping
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String sort,
+                                            @RequestParam(defaultValue = "false") boolean ratings) {
         try {
+            if (isPopularSort(sort)) {
+                return ResponseEntity.ok(rated(productService.getPopularProductsPage(
+                    null, after, limit != null ? limit : DEFAULT_POPULAR_LIMIT), ratings));
+            }
+            if (limit != null) {
+                return ResponseEntity.ok(rated(productService.getAllProductsPage(idCursor(after), limit), ratings));
+            }
             List<Product> products = productService.getAllProducts();
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok(rated(products, ratings));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
@@ -67,32 +101,109 @@ public class ProductController {
     }
     
     @GetMapping("/vendor/{vendorId}")
-    public ResponseEntity<?> getProductsByVendorId(@PathVariable Long vendorId) {
+    public ResponseEntity<?> getProductsByVendorId(@PathVariable Long vendorId,
+                                                   @RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Integer limit,
+                                                   @RequestParam(defaultValue = "false") boolean ratings) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(rated(productService.getProductsByVendorIdPage(vendorId, after, limit),
+                                               ratings));
+            }
             List<Product> products = productService.getProductsByVendorId(vendorId);
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok(rated(products, ratings));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<?> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<?> getProductsByCategory(@PathVariable String category,
+                                                   @RequestParam(required = false) String after,
+                                                   @RequestParam(required = false) Integer limit,
+                                                   @RequestParam(required = false) String sort,
+                                                   @RequestParam(defaultValue = "false") boolean ratings) {
         try {
+            if (isPopularSort(sort)) {
+                return ResponseEntity.ok(rated(productService.getPopularProductsPage(
+                    category, after, limit != null ? limit : DEFAULT_POPULAR_LIMIT), ratings));
+            }
+            if (limit != null) {
+                return ResponseEntity.ok(rated(productService.getProductsByCategoryPage(category, idCursor(after), limit),
+                                               ratings));
+            }
             List<Product> products = productService.getProductsByCategory(category);
+            return ResponseEntity.ok(rated(products, ratings));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getProductsNearby(@RequestParam BigDecimal latitude,
+                                               @RequestParam BigDecimal longitude,
+                                               @RequestParam(defaultValue = "10.0") Double radiusKm,
+                                               @RequestParam(required = false) String q,
+                                               @RequestParam(required = false) String category,
+                                               @RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<NearbyProduct> products = productService.getProductsNearby(
+                latitude, longitude, radiusKm, q, category, limit);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
     
+    // Best matches first, at most limit of them (default 50, max 500). A q
+    // without any word lists active products in id order.
     @GetMapping("/search")
-    public ResponseEntity<?> searchProducts(@RequestParam String q) {
+    public ResponseEntity<?> searchProducts(@RequestParam String q,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @RequestParam(required = false) String category,
+                                            @RequestParam(defaultValue = "false") boolean facets,
+                                            @RequestParam(defaultValue = "false") boolean ratings) {
         try {
-            List<Product> products = productService.searchProducts(q);
-            return ResponseEntity.ok(products);
+            if (facets) {
+                return ResponseEntity.ok(productService.searchProductsWithFacets(q, limit, category));
+            }
+            List<Product> products = productService.searchProducts(q, limit, category);
+            return ResponseEntity.ok(rated(products, ratings));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
+    
+    // ratings=true embeds each product's rating totals, looked up once per list.
+    private Object rated(List<Product> products, boolean ratings) {
+        return ratings ? productService.withRatings(products) : products;
+    }
+    
+    private Object rated(CursorPage<Product> page, boolean ratings) {
+        return ratings ? productService.withRatings(page) : page;
+    }
+    
+    // Id-ordered pages take the last id as their cursor; popular pages pass
+    // theirs to ProductRankingIndex as is.
+    private static Long idCursor(String after) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(after);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor: " + after);
+        }
+    }
+    
+    // sort=popular lists by ProductRankingIndex score; no sort keeps id order.
+    private static boolean isPopularSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return false;
+        }
+        if (!"popular".equalsIgnoreCase(sort)) {
+            throw new RuntimeException("Unsupported sort: " + sort);
+        }
+        return true;
+    }
 }
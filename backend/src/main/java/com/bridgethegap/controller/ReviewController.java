@@ -1,5 +1,6 @@
 package com.bridgethegap.controller;
 
+import com.bridgethegap.dto.RatingSummary;
 import com.bridgethegap.entity.Review;
 import com.bridgethegap.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -16,19 +18,28 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
     
+    // Clients retrying a submission send the same Idempotency-Key header
     @PostMapping
-    public ResponseEntity<?> addReview(@RequestBody Review review) {
+    public ResponseEntity<?> addReview(@RequestBody Review review,
+                                       @RequestHeader(value = "Idempotency-Key", required = false)
+                                       String idempotencyKey) {
         try {
-            Review savedReview = reviewService.addReview(review);
+            Review savedReview = reviewService.addReview(review, idempotencyKey);
             return ResponseEntity.ok(savedReview);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
     }
     
+    // With a limit, one "load more" page; pass nextCursor back as 'after'
     @GetMapping("/product/{productId}")
-    public ResponseEntity<?> getReviewsByProductId(@PathVariable Long productId) {
+    public ResponseEntity<?> getReviewsByProductId(@PathVariable Long productId,
+                                                   @RequestParam(required = false) String after,
+                                                   @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(reviewService.getReviewsByProductIdPage(productId, after, limit));
+            }
             List<Review> reviews = reviewService.getReviewsByProductId(productId);
             return ResponseEntity.ok(reviews);
         } catch (Exception e) {
@@ -37,8 +48,13 @@ public class ReviewController {
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getReviewsByUserId(@PathVariable Long userId) {
+    public ResponseEntity<?> getReviewsByUserId(@PathVariable Long userId,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(reviewService.getReviewsByUserIdPage(userId, after, limit));
+            }
             List<Review> reviews = reviewService.getReviewsByUserId(userId);
             return ResponseEntity.ok(reviews);
         } catch (Exception e) {
@@ -66,13 +82,22 @@ public class ReviewController {
         }
     }
     
+    // Ratings of many products at once, keyed by product id; the body is the list of ids.
+    @PostMapping("/ratings")
+    public ResponseEntity<?> getProductRatings(@RequestBody List<Long> productIds) {
+        try {
+            Map<Long, RatingSummary> ratings = reviewService.getRatingsByProductIds(productIds);
+            return ResponseEntity.ok(ratings);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
     @GetMapping("/product/{productId}/rating")
     public ResponseEntity<?> getProductRating(@PathVariable Long productId) {
         try {
-            Double averageRating = reviewService.getAverageRatingByProductId(productId);
-            Long reviewCount = reviewService.getReviewCountByProductId(productId);
-            return ResponseEntity.ok("{\"averageRating\":" + averageRating + 
-                                   ",\"reviewCount\":" + reviewCount + "}");
+            RatingSummary rating = reviewService.getRatingByProductId(productId);
+            return ResponseEntity.ok(rating);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
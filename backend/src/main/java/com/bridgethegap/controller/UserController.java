@@ -48,6 +48,16 @@ public class UserController {
         }
     }
     
+    @PutMapping("/{id}/location/ping")
+    public ResponseEntity<?> recordUserLocationPing(@PathVariable Long id, @RequestBody LocationRequest locationRequest) {
+        try {
+            userService.recordLocationPing(id, locationRequest);
+            return ResponseEntity.accepted().body("{\"message\":\"Location accepted\"}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
     @PutMapping("/{id}/location")
     public ResponseEntity<?> updateUserLocation(@PathVariable Long id, @RequestBody LocationRequest locationRequest) {
         try {
@@ -61,8 +71,14 @@ public class UserController {
     @GetMapping("/nearby")
     public ResponseEntity<?> getUsersNearby(@RequestParam BigDecimal latitude, 
                                           @RequestParam BigDecimal longitude,
-                                          @RequestParam(defaultValue = "10.0") Double radiusKm) {
+                                          @RequestParam(defaultValue = "10.0") Double radiusKm,
+                                          @RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(userService.getUsersWithinRadiusPage(
+                    latitude, longitude, radiusKm, after, limit));
+            }
             List<User> users = userService.getUsersWithinRadius(latitude, longitude, radiusKm);
             return ResponseEntity.ok(users);
         } catch (Exception e) {
@@ -1,6 +1,7 @@
 package com.bridgethegap.controller;
 
 import com.bridgethegap.dto.LocationRequest;
+import com.bridgethegap.dto.RatedVendor;
 import com.bridgethegap.entity.Vendor;
 import com.bridgethegap.service.VendorService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +22,7 @@ public class VendorController {
     @GetMapping("/{id}")
     public ResponseEntity<?> getVendorById(@PathVariable Long id) {
         try {
-            Vendor vendor = vendorService.getVendorById(id);
+            RatedVendor vendor = vendorService.getRatedVendorById(id);
             return ResponseEntity.ok(vendor);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
@@ -49,8 +50,13 @@ public class VendorController {
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<?> getVendorsByCategory(@PathVariable String category) {
+    public ResponseEntity<?> getVendorsByCategory(@PathVariable String category,
+                                                  @RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit) {
         try {
+            if (limit != null) {
+                return ResponseEntity.ok(vendorService.getVendorsByCategoryPage(category, after, limit));
+            }
             List<Vendor> vendors = vendorService.getVendorsByCategory(category);
             return ResponseEntity.ok(vendors);
         } catch (Exception e) {
@@ -58,6 +64,16 @@ public class VendorController {
         }
     }
     
+    @PutMapping("/{id}/location/ping")
+    public ResponseEntity<?> recordVendorLocationPing(@PathVariable Long id, @RequestBody LocationRequest locationRequest) {
+        try {
+            vendorService.recordLocationPing(id, locationRequest);
+            return ResponseEntity.accepted().body("{\"message\":\"Location accepted\"}");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
     @PutMapping("/{id}/location")
     public ResponseEntity<?> updateVendorLocation(@PathVariable Long id, @RequestBody LocationRequest locationRequest) {
         try {
@@ -74,7 +90,20 @@ public class VendorController {
                                             @RequestParam(defaultValue = "10.0") Double radiusKm) {
         try {
             List<Vendor> vendors = vendorService.getVendorsWithinRadius(latitude, longitude, radiusKm);
-            return ResponseEntity.ok(vendors);
+            return ResponseEntity.ok(vendorService.withRatings(vendors));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
+        }
+    }
+    
+    @GetMapping("/nearest")
+    public ResponseEntity<?> getNearestVendors(@RequestParam BigDecimal latitude,
+                                             @RequestParam BigDecimal longitude,
+                                             @RequestParam(defaultValue = "20") Integer k,
+                                             @RequestParam(defaultValue = "50.0") Double maxRadiusKm) {
+        try {
+            List<Vendor> vendors = vendorService.getNearestVendors(latitude, longitude, k, maxRadiusKm);
+            return ResponseEntity.ok(vendorService.withRatings(vendors));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
@@ -88,7 +117,7 @@ public class VendorController {
         try {
             List<Vendor> vendors = vendorService.getVendorsWithinRadiusByCategory(
                 latitude, longitude, radiusKm, category);
-            return ResponseEntity.ok(vendors);
+            return ResponseEntity.ok(vendorService.withRatings(vendors));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + e.getMessage() + "\"}");
         }
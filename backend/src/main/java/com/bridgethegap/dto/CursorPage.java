@@ -0,0 +1,51 @@
+package com.bridgethegap.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated listing. nextCursor is null on the last page;
+// otherwise pass it back as the 'after' parameter to fetch the next page.
+public class CursorPage<T> {
+    
+    private List<T> items;
+    
+    private String nextCursor;
+    
+    public static final int MAX_PAGE_SIZE = 1000;
+    
+    public CursorPage() {}
+    
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // A full page may be followed by more rows; a short one is the last.
+    public static <T> CursorPage<T> of(List<T> items, int limit, Function<T, ?> cursorOf) {
+        String nextCursor = items.size() < limit ? null : String.valueOf(cursorOf.apply(items.get(items.size() - 1)));
+        return new CursorPage<>(items, nextCursor);
+    }
+    
+    public static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RuntimeException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
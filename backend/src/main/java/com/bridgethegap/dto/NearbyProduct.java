@@ -0,0 +1,71 @@
+package com.bridgethegap.dto;
+
+import com.bridgethegap.entity.Product;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+// A product from a nearby vendor. The product's own fields are serialized at
+// the top level next to the ranking details.
+public class NearbyProduct {
+    
+    @JsonUnwrapped
+    private Product product;
+    
+    private double distanceKm;
+    
+    private double averageRating;
+    
+    private long reviewCount;
+    
+    private double score;
+    
+    public NearbyProduct() {}
+    
+    public NearbyProduct(Product product, double distanceKm, double averageRating, long reviewCount, double score) {
+        this.product = product;
+        this.distanceKm = distanceKm;
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+        this.score = score;
+    }
+    
+    // Getters and Setters
+    public Product getProduct() {
+        return product;
+    }
+    
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+    
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+    
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+    
+    public double getAverageRating() {
+        return averageRating;
+    }
+    
+    public void setAverageRating(double averageRating) {
+        this.averageRating = averageRating;
+    }
+    
+    public long getReviewCount() {
+        return reviewCount;
+    }
+    
+    public void setReviewCount(long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bridgethegap.dto;
+
+public class NearbyUser {
+    
+    private Long id;
+    
+    private double distanceKm;
+    
+    public NearbyUser() {}
+    
+    public NearbyUser(Long id, double distanceKm) {
+        this.id = id;
+        this.distanceKm = distanceKm;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+    
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+}
@@ -0,0 +1,48 @@
+package com.bridgethegap.dto;
+
+import java.util.Map;
+
+// Facet counts over every active product matching a search, not just the
+// returned page. Category counts ignore the category filter so other
+// categories stay visible; price ranges respect it.
+public class ProductFacets {
+    
+    private int total;
+    
+    private Map<String, Integer> categories;
+    
+    private Map<String, Integer> priceRanges;
+    
+    public ProductFacets() {}
+    
+    public ProductFacets(int total, Map<String, Integer> categories, Map<String, Integer> priceRanges) {
+        this.total = total;
+        this.categories = categories;
+        this.priceRanges = priceRanges;
+    }
+    
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+    
+    public void setTotal(int total) {
+        this.total = total;
+    }
+    
+    public Map<String, Integer> getCategories() {
+        return categories;
+    }
+    
+    public void setCategories(Map<String, Integer> categories) {
+        this.categories = categories;
+    }
+    
+    public Map<String, Integer> getPriceRanges() {
+        return priceRanges;
+    }
+    
+    public void setPriceRanges(Map<String, Integer> priceRanges) {
+        this.priceRanges = priceRanges;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bridgethegap.dto;
+
+import java.time.LocalDateTime;
+
+public interface ProductPopularityView {
+    
+    Long getId();
+    
+    String getCategory();
+    
+    Boolean getIsActive();
+    
+    LocalDateTime getCreatedAt();
+    
+    Long getRatingSum();
+    
+    Long getReviewCount();
+    
+    LocalDateTime getLastReviewAt();
+}
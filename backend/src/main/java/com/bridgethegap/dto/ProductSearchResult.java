@@ -0,0 +1,36 @@
+package com.bridgethegap.dto;
+
+import com.bridgethegap.entity.Product;
+
+import java.util.List;
+
+public class ProductSearchResult {
+    
+    private List<Product> items;
+    
+    private ProductFacets facets;
+    
+    public ProductSearchResult() {}
+    
+    public ProductSearchResult(List<Product> items, ProductFacets facets) {
+        this.items = items;
+        this.facets = facets;
+    }
+    
+    // Getters and Setters
+    public List<Product> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<Product> items) {
+        this.items = items;
+    }
+    
+    public ProductFacets getFacets() {
+        return facets;
+    }
+    
+    public void setFacets(ProductFacets facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bridgethegap.dto;
+
+import java.math.BigDecimal;
+
+public interface ProductSearchView {
+    
+    Long getId();
+    
+    Long getVendorId();
+    
+    String getName();
+    
+    String getDescription();
+    
+    String getCategory();
+    
+    BigDecimal getPrice();
+    
+    Boolean getIsActive();
+}
@@ -0,0 +1,38 @@
+package com.bridgethegap.dto;
+
+import com.bridgethegap.entity.Product;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+// A product with its rating totals; the product's own fields are serialized
+// at the top level next to "rating".
+public class RatedProduct {
+    
+    @JsonUnwrapped
+    private Product product;
+    
+    private RatingSummary rating;
+    
+    public RatedProduct() {}
+    
+    public RatedProduct(Product product, RatingSummary rating) {
+        this.product = product;
+        this.rating = rating;
+    }
+    
+    // Getters and Setters
+    public Product getProduct() {
+        return product;
+    }
+    
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+    
+    public RatingSummary getRating() {
+        return rating;
+    }
+    
+    public void setRating(RatingSummary rating) {
+        this.rating = rating;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bridgethegap.dto;
+
+import com.bridgethegap.entity.Vendor;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+// A vendor with the rating rollup of all its products; the vendor's own fields
+// are serialized at the top level next to "rating".
+public class RatedVendor {
+    
+    @JsonUnwrapped
+    private Vendor vendor;
+    
+    private RatingSummary rating;
+    
+    public RatedVendor() {}
+    
+    public RatedVendor(Vendor vendor, RatingSummary rating) {
+        this.vendor = vendor;
+        this.rating = rating;
+    }
+    
+    // Getters and Setters
+    public Vendor getVendor() {
+        return vendor;
+    }
+    
+    public void setVendor(Vendor vendor) {
+        this.vendor = vendor;
+    }
+    
+    public RatingSummary getRating() {
+        return rating;
+    }
+    
+    public void setRating(RatingSummary rating) {
+        this.rating = rating;
+    }
+}
@@ -0,0 +1,48 @@
+package com.bridgethegap.dto;
+
+// Average, count and star histogram (index 0 holds 1-star reviews) of a set of reviews.
+public class RatingSummary {
+    
+    private double averageRating;
+    
+    private long reviewCount;
+    
+    private long[] histogram;
+    
+    public RatingSummary() {}
+    
+    public RatingSummary(long ratingSum, long reviewCount, long[] histogram) {
+        this.averageRating = reviewCount > 0 ? (double) ratingSum / reviewCount : 0.0;
+        this.reviewCount = reviewCount;
+        this.histogram = histogram;
+    }
+    
+    public static RatingSummary empty() {
+        return new RatingSummary(0, 0, new long[5]);
+    }
+    
+    // Getters and Setters
+    public double getAverageRating() {
+        return averageRating;
+    }
+    
+    public void setAverageRating(double averageRating) {
+        this.averageRating = averageRating;
+    }
+    
+    public long getReviewCount() {
+        return reviewCount;
+    }
+    
+    public void setReviewCount(long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+    
+    public long[] getHistogram() {
+        return histogram;
+    }
+    
+    public void setHistogram(long[] histogram) {
+        this.histogram = histogram;
+    }
+}
@@ -0,0 +1,8 @@
+package com.bridgethegap.dto;
+
+public interface ReviewKeyView {
+    
+    Long getUserId();
+    
+    Long getProductId();
+}
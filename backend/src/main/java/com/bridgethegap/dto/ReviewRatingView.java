@@ -0,0 +1,8 @@
+package com.bridgethegap.dto;
+
+public interface ReviewRatingView {
+    
+    Long getProductId();
+    
+    Integer getRating();
+}
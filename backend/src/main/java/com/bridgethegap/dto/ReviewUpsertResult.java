@@ -0,0 +1,37 @@
+package com.bridgethegap.dto;
+
+public class ReviewUpsertResult {
+    
+    private Long reviewId;
+    
+    // Null when the upsert inserted a new review
+    private Integer previousRating;
+    
+    public ReviewUpsertResult() {}
+    
+    public ReviewUpsertResult(Long reviewId, Integer previousRating) {
+        this.reviewId = reviewId;
+        this.previousRating = previousRating;
+    }
+    
+    public boolean isInserted() {
+        return previousRating == null;
+    }
+    
+    // Getters and Setters
+    public Long getReviewId() {
+        return reviewId;
+    }
+    
+    public void setReviewId(Long reviewId) {
+        this.reviewId = reviewId;
+    }
+    
+    public Integer getPreviousRating() {
+        return previousRating;
+    }
+    
+    public void setPreviousRating(Integer previousRating) {
+        this.previousRating = previousRating;
+    }
+}
@@ -0,0 +1,14 @@
+package com.bridgethegap.dto;
+
+import java.math.BigDecimal;
+
+public interface VendorLocationView {
+    
+    Long getId();
+    
+    BigDecimal getLatitude();
+    
+    BigDecimal getLongitude();
+    
+    String getCategory();
+}
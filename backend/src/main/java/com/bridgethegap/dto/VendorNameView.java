@@ -0,0 +1,10 @@
+package com.bridgethegap.dto;
+
+public interface VendorNameView {
+    
+    Long getId();
+    
+    String getName();
+    
+    String getCategory();
+}
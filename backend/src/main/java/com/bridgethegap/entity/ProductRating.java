@@ -0,0 +1,116 @@
+package com.bridgethegap.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Running totals of a product's reviews, kept in step with the reviews table by
+// ProductRatingService so that ratings never need AVG/COUNT over reviews.
+@Entity
+@Table(name = "product_ratings")
+public class ProductRating implements RatingTotals {
+    
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+    
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+    
+    @Column(name = "review_count", nullable = false)
+    private Long reviewCount = 0L;
+    
+    // Number of reviews with each star rating
+    @Column(name = "rating_1", nullable = false)
+    private Long rating1 = 0L;
+    
+    @Column(name = "rating_2", nullable = false)
+    private Long rating2 = 0L;
+    
+    @Column(name = "rating_3", nullable = false)
+    private Long rating3 = 0L;
+    
+    @Column(name = "rating_4", nullable = false)
+    private Long rating4 = 0L;
+    
+    @Column(name = "rating_5", nullable = false)
+    private Long rating5 = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public ProductRating() {}
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+    
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+    
+    public Long getReviewCount() {
+        return reviewCount;
+    }
+    
+    public void setReviewCount(Long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+    
+    public Long getRating1() {
+        return rating1;
+    }
+    
+    public void setRating1(Long rating1) {
+        this.rating1 = rating1;
+    }
+    
+    public Long getRating2() {
+        return rating2;
+    }
+    
+    public void setRating2(Long rating2) {
+        this.rating2 = rating2;
+    }
+    
+    public Long getRating3() {
+        return rating3;
+    }
+    
+    public void setRating3(Long rating3) {
+        this.rating3 = rating3;
+    }
+    
+    public Long getRating4() {
+        return rating4;
+    }
+    
+    public void setRating4(Long rating4) {
+        this.rating4 = rating4;
+    }
+    
+    public Long getRating5() {
+        return rating5;
+    }
+    
+    public void setRating5(Long rating5) {
+        this.rating5 = rating5;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bridgethegap.entity;
+
+// Review totals of a product (ProductRating) or of all of a vendor's products
+// (VendorRating).
+public interface RatingTotals {
+    
+    Long getRatingSum();
+    
+    Long getReviewCount();
+    
+    // Number of reviews with each star rating
+    Long getRating1();
+    
+    Long getRating2();
+    
+    Long getRating3();
+    
+    Long getRating4();
+    
+    Long getRating5();
+}
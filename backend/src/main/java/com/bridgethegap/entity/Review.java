@@ -7,7 +7,11 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+    // Newest-first timelines per product and per user (see ReviewRepository)
+    @Index(name = "idx_reviews_product_timeline", columnList = "product_id, created_at DESC, id DESC"),
+    @Index(name = "idx_reviews_user_timeline", columnList = "user_id, created_at DESC, id DESC")
+})
 public class Review {
     
     @Id
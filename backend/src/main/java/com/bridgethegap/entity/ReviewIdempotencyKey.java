@@ -0,0 +1,50 @@
+package com.bridgethegap.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A client-supplied Idempotency-Key of a review submission, scoped to the user,
+// and the review it produced. Rows expire after review.idempotency.ttl-hours.
+@Entity
+@Table(name = "review_idempotency_keys")
+public class ReviewIdempotencyKey {
+    
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+    
+    // Set once the submission's upsert has run
+    @Column(name = "review_id")
+    private Long reviewId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public ReviewIdempotencyKey() {}
+    
+    // Getters and Setters
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    public Long getReviewId() {
+        return reviewId;
+    }
+    
+    public void setReviewId(Long reviewId) {
+        this.reviewId = reviewId;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -3,11 +3,15 @@ package com.bridgethegap.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+// Only changed columns are written. The position is never written by a save:
+// LocationPingBuffer writes it, ordered by location_seq.
+@DynamicUpdate
 public class User {
     
     @Id
@@ -27,12 +31,16 @@ public class User {
     @Column(nullable = false)
     private String password;
     
-    @Column(precision = 10, scale = 8)
+    @Column(precision = 10, scale = 8, updatable = false)
     private BigDecimal latitude;
     
-    @Column(precision = 11, scale = 8)
+    @Column(precision = 11, scale = 8, updatable = false)
     private BigDecimal longitude;
     
+    @Column(name = "location_seq", insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long locationSeq;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -3,11 +3,16 @@ package com.bridgethegap.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "vendors")
+// Saves write only changed columns, and never the position, which
+// LocationPingBuffer writes in location_seq order so an older buffered ping
+// cannot replace a newer one
+@DynamicUpdate
 public class Vendor {
     
     @Id
@@ -31,12 +36,16 @@ public class Vendor {
     @Column(nullable = false)
     private String password;
     
-    @Column(precision = 10, scale = 8)
+    @Column(precision = 10, scale = 8, updatable = false)
     private BigDecimal latitude;
     
-    @Column(precision = 11, scale = 8)
+    @Column(precision = 11, scale = 8, updatable = false)
     private BigDecimal longitude;
     
+    @Column(name = "location_seq", insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long locationSeq;
+    
     @Column(columnDefinition = "TEXT")
     private String description;
     
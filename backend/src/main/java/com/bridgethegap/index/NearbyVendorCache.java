@@ -0,0 +1,275 @@
+package com.bridgethegap.index;
+
+import com.bridgethegap.entity.Vendor;
+import com.bridgethegap.util.CacheStats;
+import com.bridgethegap.util.LocationUtil;
+import com.bridgethegap.util.TtlLruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+// Result cache for nearby-vendor searches. Query points are snapped to a small
+// grid cell and radii are rounded up to a bucket, so nearby callers share one
+// entry. Each entry holds every vendor that could match any caller in the cell;
+// the caller's own distances are recomputed and re-sorted on every hit.
+// Entries are also registered in a coarse coverage grid, so invalidating a
+// point only checks the entries whose coverage area overlaps its coarse cell.
+@Component
+public class NearbyVendorCache {
+    
+    private static final double[] RADIUS_BUCKETS_KM = {1, 2, 5, 10, 20, 50, 100};
+    
+    private static final double COVERAGE_CELL_DEG = 0.1;
+    private static final int COVERAGE_LON_CELLS = (int) Math.ceil(360.0 / COVERAGE_CELL_DEG);
+    
+    @Value("${vendor.nearby-cache.cell-size-deg:0.01}")
+    private double cellSizeDeg;
+    
+    @Value("${vendor.nearby-cache.max-entries:10000}")
+    private int maxEntries;
+    
+    @Value("${vendor.nearby-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private TtlLruCache<Key, CandidateSet> cache;
+    
+    private final Map<Long, Set<Key>> coverage = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        cache = new TtlLruCache<>("nearbyVendors", maxEntries, Duration.ofSeconds(ttlSeconds),
+                                  (key, value) -> unregister(key));
+    }
+    
+    // Returns vendors strictly within radiusKm of the point, nearest first, or
+    // null if the radius is above the largest bucket and is not cached.
+    // 'loader' receives the snapped key and must return every vendor within
+    // key.getSearchRadiusKm() of the key's center.
+    public List<Vendor> lookup(BigDecimal latitude, BigDecimal longitude, double radiusKm, String category,
+                               Function<Key, List<Vendor>> loader) {
+        double lat = latitude.doubleValue();
+        double lon = longitude.doubleValue();
+        Key key = keyFor(lat, lon, radiusKm, category);
+        if (key == null) {
+            return null;
+        }
+        
+        CandidateSet candidates = cache.getOrLoad(key, k -> {
+            // Registered before loading so an invalidation racing the load finds it.
+            register(k);
+            try {
+                return new CandidateSet(loader.apply(k));
+            } catch (RuntimeException e) {
+                unregister(k);
+                throw e;
+            }
+        });
+        double[] distances = new double[candidates.size()];
+        LocationUtil.from(lat, lon).distancesKm(candidates.latitudes, candidates.longitudes, distances,
+                                                candidates.size());
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] < radiusKm) {
+                matches.add(i);
+            }
+        }
+        matches.sort(Comparator.comparingDouble(i -> distances[i]));
+        List<Vendor> vendors = new ArrayList<>(matches.size());
+        for (int i : matches) {
+            vendors.add(candidates.vendors[i]);
+        }
+        return vendors;
+    }
+    
+    // Drops every entry whose coverage area contains the given point, for the
+    // vendor's category and for uncategorised searches.
+    public void invalidate(double latitude, double longitude, String category) {
+        Set<Key> keys = coverage.get(coverageCell(coverageLatIndex(latitude), coverageLonIndex(longitude)));
+        if (keys == null) {
+            return;
+        }
+        String categoryKey = normalize(category);
+        for (Key key : new ArrayList<>(keys)) {
+            if ((key.category == null || key.category.equals(categoryKey))
+                    && LocationUtil.calculateDistance(key.centerLat, key.centerLon, latitude, longitude)
+                       < key.searchRadiusKm) {
+                cache.invalidate(key);
+                unregister(key);
+            }
+        }
+    }
+    
+    public void clear() {
+        coverage.clear();
+        cache.clear();
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+    
+    private Key keyFor(double latitude, double longitude, double radiusKm, String category) {
+        double bucket = -1;
+        for (double candidate : RADIUS_BUCKETS_KM) {
+            if (radiusKm <= candidate) {
+                bucket = candidate;
+                break;
+            }
+        }
+        if (bucket < 0) {
+            return null;
+        }
+        long latCell = (long) Math.floor(latitude / cellSizeDeg);
+        long lonCell = (long) Math.floor(longitude / cellSizeDeg);
+        double centerLat = (latCell + 0.5) * cellSizeDeg;
+        double centerLon = (lonCell + 0.5) * cellSizeDeg;
+        double halfDiagonalKm = LocationUtil.calculateDistance(centerLat, centerLon,
+                                                                centerLat + cellSizeDeg / 2,
+                                                                centerLon + cellSizeDeg / 2);
+        return new Key(latCell, lonCell, bucket, normalize(category), centerLat, centerLon, bucket + halfDiagonalKm);
+    }
+    
+    private void register(Key key) {
+        forEachCoverageCell(key, cell -> coverage.computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet()).add(key));
+    }
+    
+    private void unregister(Key key) {
+        forEachCoverageCell(key, cell -> coverage.computeIfPresent(cell, (c, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        }));
+    }
+    
+    // Visits every coarse cell overlapping the key's coverage circle's bounding box.
+    private void forEachCoverageCell(Key key, LongConsumer action) {
+        double dLat = key.searchRadiusKm / (LocationUtil.EARTH_RADIUS_KM * Math.PI / 180.0);
+        int minLat = coverageLatIndex(key.centerLat - dLat);
+        int maxLat = coverageLatIndex(key.centerLat + dLat);
+        double cosEdge = Math.cos(Math.toRadians(Math.min(90.0, Math.abs(key.centerLat) + dLat)));
+        int minLon = 0;
+        int maxLon = COVERAGE_LON_CELLS - 1;
+        if (cosEdge > 1e-6 && dLat / cosEdge < 180.0) {
+            double dLon = dLat / cosEdge;
+            int from = (int) Math.floor((key.centerLon - dLon + 180.0) / COVERAGE_CELL_DEG);
+            int to = (int) Math.floor((key.centerLon + dLon + 180.0) / COVERAGE_CELL_DEG);
+            if (to - from + 1 < COVERAGE_LON_CELLS) {
+                minLon = from;
+                maxLon = to;
+            }
+        }
+        for (int lat = minLat; lat <= maxLat; lat++) {
+            for (int lon = minLon; lon <= maxLon; lon++) {
+                action.accept(coverageCell(lat, Math.floorMod(lon, COVERAGE_LON_CELLS)));
+            }
+        }
+    }
+    
+    private int coverageLatIndex(double latitude) {
+        int max = (int) Math.ceil(180.0 / COVERAGE_CELL_DEG) - 1;
+        return Math.min(max, Math.max(0, (int) Math.floor((latitude + 90.0) / COVERAGE_CELL_DEG)));
+    }
+    
+    private int coverageLonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / COVERAGE_CELL_DEG), COVERAGE_LON_CELLS);
+    }
+    
+    private long coverageCell(int latIndex, int lonIndex) {
+        return (long) latIndex * COVERAGE_LON_CELLS + lonIndex;
+    }
+    
+    private String normalize(String category) {
+        return category == null ? null : category.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    public static class Key {
+        private final long latCell;
+        private final long lonCell;
+        private final double radiusBucketKm;
+        private final String category;
+        private final double centerLat;
+        private final double centerLon;
+        private final double searchRadiusKm;
+        
+        Key(long latCell, long lonCell, double radiusBucketKm, String category,
+            double centerLat, double centerLon, double searchRadiusKm) {
+            this.latCell = latCell;
+            this.lonCell = lonCell;
+            this.radiusBucketKm = radiusBucketKm;
+            this.category = category;
+            this.centerLat = centerLat;
+            this.centerLon = centerLon;
+            this.searchRadiusKm = searchRadiusKm;
+        }
+        
+        public BigDecimal getCenterLatitude() {
+            return BigDecimal.valueOf(centerLat);
+        }
+        
+        public BigDecimal getCenterLongitude() {
+            return BigDecimal.valueOf(centerLon);
+        }
+        
+        public double getSearchRadiusKm() {
+            return searchRadiusKm;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return latCell == other.latCell && lonCell == other.lonCell
+                && radiusBucketKm == other.radiusBucketKm && Objects.equals(category, other.category);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(latCell, lonCell, radiusBucketKm, category);
+        }
+    }
+    
+    // Cached vendors with their coordinates unpacked into parallel arrays for
+    // the bulk distance pass.
+    private static class CandidateSet {
+        final Vendor[] vendors;
+        final double[] latitudes;
+        final double[] longitudes;
+        
+        CandidateSet(List<Vendor> located) {
+            List<Vendor> withLocation = new ArrayList<>(located.size());
+            for (Vendor vendor : located) {
+                if (vendor.getLatitude() != null && vendor.getLongitude() != null) {
+                    withLocation.add(vendor);
+                }
+            }
+            vendors = withLocation.toArray(new Vendor[0]);
+            latitudes = new double[vendors.length];
+            longitudes = new double[vendors.length];
+            for (int i = 0; i < vendors.length; i++) {
+                latitudes[i] = vendors[i].getLatitude().doubleValue();
+                longitudes[i] = vendors[i].getLongitude().doubleValue();
+            }
+        }
+        
+        int size() {
+            return vendors.length;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.bridgethegap.index;
+
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.util.CacheStats;
+import com.bridgethegap.util.TtlLruCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Read-through caches for product lookups by id, by category and by vendor.
+// ProductService invalidates exactly the entries a write can affect, using the
+// product's state both before and after the write. Cached products and lists
+// are shared between callers and must not be modified.
+@Component
+public class ProductCatalogCache {
+
+    @Value("${product.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private TtlLruCache<Long, Product> byId;
+    private TtlLruCache<String, List<Product>> byCategory;
+    private TtlLruCache<Long, List<Product>> byVendor;
+
+    @PostConstruct
+    public void init() {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        byId = new TtlLruCache<>("productsById", maxEntries, ttl);
+        byCategory = new TtlLruCache<>("productsByCategory", maxEntries, ttl);
+        byVendor = new TtlLruCache<>("productsByVendor", maxEntries, ttl);
+    }
+
+    public Product getProduct(Long id, Function<Long, Product> loader) {
+        return byId.getOrLoad(id, loader);
+    }
+
+    public List<Product> getByCategory(String category, Function<String, List<Product>> loader) {
+        return byCategory.getOrLoad(categoryKey(category), key -> Collections.unmodifiableList(loader.apply(category)));
+    }
+
+    public List<Product> getByVendor(Long vendorId, Function<Long, List<Product>> loader) {
+        return byVendor.getOrLoad(vendorId, key -> Collections.unmodifiableList(loader.apply(vendorId)));
+    }
+
+    // Drops every entry the product appears in, or would appear in.
+    public void invalidate(Product product) {
+        invalidate(product.getId(), product.getCategory(), product.getVendorId());
+    }
+
+    public void invalidate(Long productId, String category, Long vendorId) {
+        if (productId != null) {
+            byId.invalidate(productId);
+        }
+        if (category != null) {
+            byCategory.invalidate(categoryKey(category));
+        }
+        if (vendorId != null) {
+            byVendor.invalidate(vendorId);
+        }
+    }
+
+    // For bulk writes: each product, category and vendor entry is dropped once.
+    public void invalidateAll(Collection<Long> productIds, Collection<String> categories, Collection<Long> vendorIds) {
+        productIds.forEach(byId::invalidate);
+        for (String category : categories) {
+            if (category != null) {
+                byCategory.invalidate(categoryKey(category));
+            }
+        }
+        for (Long vendorId : vendorIds) {
+            if (vendorId != null) {
+                byVendor.invalidate(vendorId);
+            }
+        }
+    }
+
+    // For the foreign key cascade when a vendor is deleted.
+    public void invalidateVendor(Long vendorId) {
+        byVendor.invalidate(vendorId);
+        byId.invalidateIf((id, product) -> vendorId.equals(product.getVendorId()));
+        byCategory.invalidateIf((category, products) -> products.stream()
+                .anyMatch(product -> vendorId.equals(product.getVendorId())));
+    }
+
+    public List<CacheStats> stats() {
+        List<CacheStats> stats = new ArrayList<>();
+        stats.add(byId.stats());
+        stats.add(byCategory.stats());
+        stats.add(byVendor.stats());
+        return stats;
+    }
+
+    // Category matches in MySQL are case-insensitive, so cache keys are too.
+    private String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,272 @@
+package com.bridgethegap.index;
+
+import com.bridgethegap.dto.ProductPopularityView;
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Active products ordered by popularity, overall and per category, so that a
+// "popular" listing reads the first N entries instead of sorting the category.
+// The score combines the Bayesian average rating, the number of reviews and a
+// bounded bonus for the latest review (or creation) that decays with its age.
+// Ages are measured from the last rescoring, so between rescorings a score only
+// changes with its product's reviews or details. ProductService and
+// ProductRatingService keep it current.
+@Component
+public class ProductRankingIndex {
+
+    // Averages over few reviews are pulled toward this prior
+    private static final double PRIOR_RATING = 3.0;
+    private static final int PRIOR_REVIEWS = 5;
+    // Each tenfold increase in reviews adds 1, the full range of the rating term
+    private static final double REVIEW_COUNT_WEIGHT = 1.0;
+    // Bonus for activity at the time of the last rescoring, half the rating range
+    private static final double RECENCY_WEIGHT = 0.5;
+    private static final long EPOCH_SECONDS = LocalDateTime.of(2024, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final String ALL = "";
+    private static final char CURSOR_SEPARATOR = ':';
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // The recency bonus shrinks by a factor of e for every this many days of age
+    @Value("${product.ranking.recency-days:7}")
+    private double recencyDays;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Map<String, NavigableSet<Ranked>> rankings = new ConcurrentHashMap<>();
+    private volatile long scoredAt = epochSeconds(LocalDateTime.now());
+
+    @PostConstruct
+    public synchronized void load() {
+        entries.clear();
+        rankings.clear();
+        scoredAt = epochSeconds(LocalDateTime.now());
+        for (ProductPopularityView view : productRepository.findPopularityViews()) {
+            Entry entry = new Entry(categoryKey(view.getCategory()), Boolean.TRUE.equals(view.getIsActive()));
+            entry.ratingSum = view.getRatingSum() != null ? view.getRatingSum() : 0L;
+            entry.reviewCount = view.getReviewCount() != null ? view.getReviewCount() : 0L;
+            entry.lastActivity = Math.max(epochSeconds(view.getCreatedAt()), epochSeconds(view.getLastReviewAt()));
+            entries.put(view.getId(), entry);
+            rank(view.getId(), entry);
+        }
+    }
+
+    // Picks up a new product or a change of category or active flag.
+    public synchronized void updateProduct(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        Entry previous = entries.get(product.getId());
+        Entry entry = new Entry(categoryKey(product.getCategory()), Boolean.TRUE.equals(product.getIsActive()));
+        if (previous != null) {
+            unrank(product.getId(), previous);
+            entry.ratingSum = previous.ratingSum;
+            entry.reviewCount = previous.reviewCount;
+            entry.lastActivity = previous.lastActivity;
+        }
+        entry.lastActivity = Math.max(entry.lastActivity, epochSeconds(product.getCreatedAt()));
+        entries.put(product.getId(), entry);
+        rank(product.getId(), entry);
+    }
+
+    public synchronized void setActive(Collection<Long> productIds, boolean active) {
+        for (Long productId : productIds) {
+            Entry entry = entries.get(productId);
+            if (entry != null && entry.active != active) {
+                unrank(productId, entry);
+                entry.active = active;
+                rank(productId, entry);
+            }
+        }
+    }
+
+    public synchronized void removeProduct(Long productId) {
+        Entry entry = entries.remove(productId);
+        if (entry != null) {
+            unrank(productId, entry);
+        }
+    }
+
+    public synchronized void reviewAdded(Long productId, int rating, LocalDateTime at) {
+        adjust(productId, rating, 1, at);
+    }
+
+    public synchronized void reviewChanged(Long productId, int previousRating, int rating, LocalDateTime at) {
+        adjust(productId, rating - previousRating, 0, at);
+    }
+
+    // The latest activity is kept: removing a review does not make a product older.
+    public synchronized void reviewRemoved(Long productId, int rating) {
+        adjust(productId, -rating, -1, null);
+    }
+
+    // Ages the recency bonus: every active product is scored again as of now,
+    // into new sets that replace the old ones at once.
+    @Scheduled(fixedDelayString = "${product.ranking.rescore-interval-ms:3600000}",
+               initialDelayString = "${product.ranking.rescore-interval-ms:3600000}")
+    public synchronized void rescore() {
+        scoredAt = epochSeconds(LocalDateTime.now());
+        Map<String, NavigableSet<Ranked>> rescored = new ConcurrentHashMap<>();
+        for (Map.Entry<Long, Entry> product : entries.entrySet()) {
+            Entry entry = product.getValue();
+            entry.ranked = null;
+            if (entry.active) {
+                entry.ranked = new Ranked(score(entry), product.getKey());
+                rescored.computeIfAbsent(ALL, key -> new ConcurrentSkipListSet<>()).add(entry.ranked);
+                rescored.computeIfAbsent(entry.category, key -> new ConcurrentSkipListSet<>()).add(entry.ranked);
+            }
+        }
+        rankings = rescored;
+    }
+
+    // The most popular active products, optionally within a category,
+    // continuing after the position a previous page's cursor names. The cursor
+    // holds a score and an id, so a page picks up where the last one ended even
+    // when that product has since moved or left the listing.
+    public List<Ranked> top(String category, String after, int limit) {
+        String key = category == null || category.isBlank() ? ALL : categoryKey(category);
+        NavigableSet<Ranked> ranking = rankings.get(key);
+        List<Ranked> top = new ArrayList<>(Math.min(limit, 256));
+        if (ranking == null) {
+            return top;
+        }
+        if (after != null && !after.isBlank()) {
+            ranking = ranking.tailSet(Ranked.fromCursor(after), false);
+        }
+        Iterator<Ranked> iterator = ranking.iterator();
+        while (top.size() < limit && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    public Double score(Long productId) {
+        Entry entry = entries.get(productId);
+        return entry != null ? score(entry) : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void adjust(Long productId, int ratingDelta, int countDelta, LocalDateTime at) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            return;
+        }
+        unrank(productId, entry);
+        entry.ratingSum = Math.max(0L, entry.ratingSum + ratingDelta);
+        entry.reviewCount = Math.max(0L, entry.reviewCount + countDelta);
+        if (at != null) {
+            entry.lastActivity = Math.max(entry.lastActivity, epochSeconds(at));
+        }
+        rank(productId, entry);
+    }
+
+    private void rank(Long productId, Entry entry) {
+        if (!entry.active) {
+            return;
+        }
+        entry.ranked = new Ranked(score(entry), productId);
+        rankings.computeIfAbsent(ALL, key -> new ConcurrentSkipListSet<>()).add(entry.ranked);
+        rankings.computeIfAbsent(entry.category, key -> new ConcurrentSkipListSet<>()).add(entry.ranked);
+    }
+
+    private void unrank(Long productId, Entry entry) {
+        if (entry.ranked == null) {
+            return;
+        }
+        Map<String, NavigableSet<Ranked>> rankings = this.rankings;
+        rankings.get(ALL).remove(entry.ranked);
+        NavigableSet<Ranked> ranking = rankings.get(entry.category);
+        ranking.remove(entry.ranked);
+        if (ranking.isEmpty()) {
+            rankings.remove(entry.category);
+        }
+        entry.ranked = null;
+    }
+
+    private double score(Entry entry) {
+        double bayesianRating = (PRIOR_RATING * PRIOR_REVIEWS + entry.ratingSum) / (PRIOR_REVIEWS + entry.reviewCount);
+        double ageDays = Math.max(0L, scoredAt - entry.lastActivity) / 86400.0;
+        return bayesianRating / 5.0
+               + REVIEW_COUNT_WEIGHT * Math.log10(1 + entry.reviewCount)
+               + RECENCY_WEIGHT * Math.exp(-ageDays / recencyDays);
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time != null ? time.toEpochSecond(ZoneOffset.UTC) : EPOCH_SECONDS;
+    }
+
+    // Category matches in MySQL are case-insensitive, so ranking keys are too.
+    private static String categoryKey(String category) {
+        return category == null ? ALL : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entry {
+        private final String category;
+        private boolean active;
+        private long ratingSum;
+        private long reviewCount;
+        private long lastActivity = EPOCH_SECONDS;
+        private volatile Ranked ranked;
+
+        Entry(String category, boolean active) {
+            this.category = category;
+            this.active = active;
+        }
+    }
+
+    // Highest score first; ties go to the lower id.
+    public static class Ranked implements Comparable<Ranked> {
+        private final double score;
+        private final long id;
+
+        Ranked(double score, long id) {
+            this.score = score;
+            this.id = id;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        // "<score>:<id>", which top() continues after
+        public String toCursor() {
+            return Double.toString(score) + CURSOR_SEPARATOR + id;
+        }
+
+        static Ranked fromCursor(String cursor) {
+            int separator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+            try {
+                return new Ranked(Double.parseDouble(cursor.substring(0, separator)),
+                                  Long.parseLong(cursor.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor: " + cursor);
+            }
+        }
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.bridgethegap.index;
+
+import com.bridgethegap.dto.ProductFacets;
+import com.bridgethegap.dto.ProductSearchView;
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.repository.ProductRepository;
+import com.bridgethegap.util.FacetIndex;
+import com.bridgethegap.util.TextIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-process full-text index over product name, category and description, kept
+// current by ProductService. Inactive products stay indexed so that activation
+// only flips a flag; searches skip them.
+@Component
+public class ProductSearchIndex {
+
+    private static final float[] FIELD_WEIGHTS = {3.0f, 2.0f, 1.0f};
+    
+    // Upper bounds of the price facet ranges; the last range is open-ended
+    private static final int[] PRICE_RANGE_BOUNDS = {10, 25, 50, 100, 250};
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private volatile TextIndex textIndex = new TextIndex();
+    // Active products only
+    private volatile FacetIndex categoryFacets = new FacetIndex();
+    private volatile FacetIndex priceFacets = new FacetIndex();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> productsByVendor = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        TextIndex loaded = new TextIndex();
+        categoryFacets = new FacetIndex();
+        priceFacets = new FacetIndex();
+        entries.clear();
+        productsByVendor.clear();
+        for (ProductSearchView view : productRepository.findSearchViews()) {
+            loaded.put(view.getId(), fields(view.getName(), view.getCategory(), view.getDescription()), FIELD_WEIGHTS);
+            track(view.getId(), new Entry(view.getVendorId(), view.getCategory(), view.getPrice(),
+                                          Boolean.TRUE.equals(view.getIsActive())));
+        }
+        textIndex = loaded;
+    }
+
+    public void update(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        textIndex.put(product.getId(), fields(product.getName(), product.getCategory(), product.getDescription()),
+                      FIELD_WEIGHTS);
+        track(product.getId(), new Entry(product.getVendorId(), product.getCategory(), product.getPrice(),
+                                         Boolean.TRUE.equals(product.getIsActive())));
+    }
+
+    // Flips the active flag of already indexed products after a bulk update.
+    public void setActive(Collection<Long> productIds, boolean active) {
+        for (Long productId : productIds) {
+            Entry entry = entries.get(productId);
+            if (entry != null && entry.active != active) {
+                track(productId, new Entry(entry.vendorId, entry.category, entry.price, active));
+            }
+        }
+    }
+
+    public void remove(Long productId) {
+        textIndex.remove(productId);
+        untrackFacets(productId);
+        Entry removed = entries.remove(productId);
+        if (removed != null) {
+            untrackVendor(removed.vendorId, productId);
+        }
+    }
+
+    // Products are deleted with their vendor by the foreign key cascade.
+    // Returns the ids of the removed products.
+    public Set<Long> removeByVendor(Long vendorId) {
+        Set<Long> productIds = productsByVendor.remove(vendorId);
+        if (productIds == null) {
+            return Collections.emptySet();
+        }
+        for (Long productId : productIds) {
+            textIndex.remove(productId);
+            untrackFacets(productId);
+            entries.remove(productId);
+        }
+        return productIds;
+    }
+
+    // Ids of the best matching active products, most relevant first.
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+    
+    public List<Long> search(String query, int limit, String category) {
+        String categoryKey = category == null || category.isBlank() ? null : FacetIndex.key(category);
+        List<TextIndex.Hit> hits = textIndex.search(query, limit, id -> {
+            Entry entry = entries.get(id);
+            return entry != null && entry.active && (categoryKey == null || categoryKey.equals(entry.categoryKey));
+        });
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (TextIndex.Hit hit : hits) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+
+    // Active products of the given vendors, optionally limited to a category and
+    // to products matching every word of the query, mapped to their relevance.
+    // Without a query every product scores 1.
+    public Map<Long, Float> matchVendorProducts(Collection<Long> vendorIds, String category, String query) {
+        String categoryKey = category == null || category.isBlank() ? null : FacetIndex.key(category);
+        List<Long> candidates = new ArrayList<>();
+        for (Long vendorId : vendorIds) {
+            Set<Long> productIds = productsByVendor.get(vendorId);
+            if (productIds == null) {
+                continue;
+            }
+            for (Long productId : productIds) {
+                Entry entry = entries.get(productId);
+                if (entry != null && entry.active && (categoryKey == null || categoryKey.equals(entry.categoryKey))) {
+                    candidates.add(productId);
+                }
+            }
+        }
+        if (query != null && !query.isBlank()) {
+            return textIndex.score(query, candidates);
+        }
+        Map<Long, Float> scores = new HashMap<>();
+        for (Long productId : candidates) {
+            scores.put(productId, 1.0f);
+        }
+        return scores;
+    }
+
+    // Category and price range counts over every active product matching the
+    // query (all active products for a blank query).
+    public ProductFacets facets(String query, String category) {
+        BitSet matching = query != null && !query.isBlank() ? textIndex.matching(query) : null;
+        Map<String, Integer> categories = sortedByCount(categoryFacets.counts(matching));
+        
+        BitSet priceFilter = matching;
+        if (category != null && !category.isBlank()) {
+            priceFilter = categoryFacets.ids(category);
+            if (matching != null) {
+                priceFilter.and(matching);
+            }
+        }
+        Map<String, Integer> counts = priceFacets.counts(priceFilter);
+        Map<String, Integer> priceRanges = new LinkedHashMap<>();
+        int total = 0;
+        for (int bucket = 0; bucket <= PRICE_RANGE_BOUNDS.length; bucket++) {
+            String label = priceRangeLabel(bucket);
+            int count = counts.getOrDefault(label, 0);
+            priceRanges.put(label, count);
+            total += count;
+        }
+        return new ProductFacets(total, categories, priceRanges);
+    }
+    
+    public Long vendorIdOf(Long productId) {
+        Entry entry = entries.get(productId);
+        return entry != null ? entry.vendorId : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void track(Long productId, Entry entry) {
+        Entry previous = entries.put(productId, entry);
+        trackFacets(productId, entry);
+        if (previous != null && previous.vendorId != null && !previous.vendorId.equals(entry.vendorId)) {
+            untrackVendor(previous.vendorId, productId);
+        }
+        if (entry.vendorId != null) {
+            productsByVendor.computeIfAbsent(entry.vendorId, id -> ConcurrentHashMap.newKeySet()).add(productId);
+        }
+    }
+
+    private void trackFacets(Long productId, Entry entry) {
+        if (productId > Integer.MAX_VALUE) {
+            return;
+        }
+        int id = productId.intValue();
+        if (entry.active) {
+            categoryFacets.set(id, entry.category != null ? entry.category : "");
+            priceFacets.set(id, priceRangeLabel(priceRange(entry.price)));
+        } else {
+            categoryFacets.remove(id);
+            priceFacets.remove(id);
+        }
+    }
+    
+    private void untrackFacets(Long productId) {
+        if (productId <= Integer.MAX_VALUE) {
+            categoryFacets.remove(productId.intValue());
+            priceFacets.remove(productId.intValue());
+        }
+    }
+    
+    private void untrackVendor(Long vendorId, Long productId) {
+        if (vendorId == null) {
+            return;
+        }
+        productsByVendor.computeIfPresent(vendorId, (id, productIds) -> {
+            productIds.remove(productId);
+            return productIds.isEmpty() ? null : productIds;
+        });
+    }
+
+    private static int priceRange(BigDecimal price) {
+        double value = price != null ? price.doubleValue() : 0.0;
+        int bucket = 0;
+        while (bucket < PRICE_RANGE_BOUNDS.length && value >= PRICE_RANGE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+    
+    private static String priceRangeLabel(int bucket) {
+        if (bucket == PRICE_RANGE_BOUNDS.length) {
+            return PRICE_RANGE_BOUNDS[bucket - 1] + "+";
+        }
+        return (bucket == 0 ? 0 : PRICE_RANGE_BOUNDS[bucket - 1]) + "-" + PRICE_RANGE_BOUNDS[bucket];
+    }
+    
+    private static Map<String, Integer> sortedByCount(Map<String, Integer> counts) {
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+    
+    private static String[] fields(String name, String category, String description) {
+        return new String[] {name, category, description};
+    }
+
+    static class Entry {
+        final Long vendorId;
+        final String category;
+        final String categoryKey;
+        final BigDecimal price;
+        final boolean active;
+
+        Entry(Long vendorId, String category, BigDecimal price, boolean active) {
+            this.vendorId = vendorId;
+            this.category = category;
+            this.categoryKey = FacetIndex.key(category != null ? category : "");
+            this.price = price;
+            this.active = active;
+        }
+    }
+}
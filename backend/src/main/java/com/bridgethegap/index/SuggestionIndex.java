@@ -0,0 +1,358 @@
+package com.bridgethegap.index;
+
+import com.bridgethegap.dto.ProductSearchView;
+import com.bridgethegap.dto.Suggestion;
+import com.bridgethegap.dto.VendorNameView;
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.entity.ProductRating;
+import com.bridgethegap.entity.Vendor;
+import com.bridgethegap.entity.VendorRating;
+import com.bridgethegap.repository.ProductRatingRepository;
+import com.bridgethegap.repository.ProductRepository;
+import com.bridgethegap.repository.VendorRatingRepository;
+import com.bridgethegap.repository.VendorRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Sorted map of normalized product names, vendor names and categories for
+// typeahead. Each active product and each vendor adds its popularity to the
+// entries of its name and category: one plus the stars its reviews sum to,
+// from product_ratings and vendor_ratings, so well-reviewed names complete
+// first. Every product or vendor remembers what it contributed so that updates
+// only touch their own entries, and ProductRatingService reports rating
+// changes once they commit. Short prefixes additionally keep their completions
+// ordered by weight, since their key ranges are too large to scan per request.
+@Component
+public class SuggestionIndex {
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String VENDOR = "VENDOR";
+    public static final String CATEGORY = "CATEGORY";
+
+    // Prefixes up to this length have a weight-ordered set of their completions
+    private static final int RANKED_PREFIX_LENGTH = 3;
+    // Completions of a longer prefix scanned in key order before falling back to
+    // the weight-ordered set of its first RANKED_PREFIX_LENGTH characters, and
+    // entries of that set checked against the prefix
+    private static final int MAX_SCANNED = 4096;
+    private static final char TYPE_SEPARATOR = '\u0000';
+
+    // Heaviest first; ties go to the shorter text
+    private static final Comparator<Entry> RANK = Comparator.comparingLong((Entry entry) -> -entry.weight)
+            .thenComparingInt(entry -> entry.text.length())
+            .thenComparing(entry -> entry.key);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private ProductRatingRepository productRatingRepository;
+
+    @Autowired
+    private VendorRatingRepository vendorRatingRepository;
+
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableSet<Entry>> ranked = new ConcurrentHashMap<>();
+    private final Map<Long, Contribution> productContributions = new ConcurrentHashMap<>();
+    private final Map<Long, Contribution> vendorContributions = new ConcurrentHashMap<>();
+    // Rating sums of every product (active or not) and vendor, and each
+    // product's vendor, so a rating change can re-weight both
+    private final Map<Long, ProductStars> productStars = new HashMap<>();
+    private final Map<Long, Long> vendorStars = new HashMap<>();
+
+    @PostConstruct
+    public synchronized void load() {
+        entries.clear();
+        ranked.clear();
+        productContributions.clear();
+        vendorContributions.clear();
+        productStars.clear();
+        vendorStars.clear();
+        Map<Long, Long> productRatingSums = new HashMap<>();
+        for (ProductRating rating : productRatingRepository.findAll()) {
+            productRatingSums.put(rating.getProductId(), rating.getRatingSum());
+        }
+        for (VendorRating rating : vendorRatingRepository.findAll()) {
+            vendorStars.put(rating.getVendorId(), rating.getRatingSum());
+        }
+        for (ProductSearchView view : productRepository.findSearchViews()) {
+            productStars.put(view.getId(),
+                             new ProductStars(view.getVendorId(), productRatingSums.getOrDefault(view.getId(), 0L)));
+            updateProduct(view);
+        }
+        for (VendorNameView view : vendorRepository.findVendorNames()) {
+            contribute(vendorContributions, view.getId(), view.getName(), VENDOR, view.getCategory(),
+                       popularity(vendorStars.getOrDefault(view.getId(), 0L)));
+        }
+    }
+
+    public void updateProduct(Product product) {
+        if (product.getId() != null) {
+            updateProduct(product.getId(), product.getVendorId(), product.getName(), product.getCategory(),
+                          Boolean.TRUE.equals(product.getIsActive()));
+        }
+    }
+
+    public void updateProduct(ProductSearchView view) {
+        updateProduct(view.getId(), view.getVendorId(), view.getName(), view.getCategory(),
+                      Boolean.TRUE.equals(view.getIsActive()));
+    }
+
+    // The product's stars leave its vendor's total with it, as in vendor_ratings
+    public synchronized void removeProduct(Long productId) {
+        ProductStars stars = productStars.remove(productId);
+        if (stars != null) {
+            addVendorStars(stars.vendorId, -stars.ratingSum);
+        }
+        contribute(productContributions, productId, null, PRODUCT, null, 0);
+    }
+
+    public synchronized void updateVendor(Vendor vendor) {
+        if (vendor.getId() != null) {
+            contribute(vendorContributions, vendor.getId(), vendor.getName(), VENDOR, vendor.getCategory(),
+                       popularity(vendorStars.getOrDefault(vendor.getId(), 0L)));
+        }
+    }
+
+    public synchronized void removeVendor(Long vendorId) {
+        vendorStars.remove(vendorId);
+        contribute(vendorContributions, vendorId, null, VENDOR, null, 0);
+    }
+
+    // A committed change of a product's rating sum, e.g. +5 for a new five-star review
+    public synchronized void ratingChanged(Long productId, long ratingSumDelta) {
+        ProductStars stars = productStars.get(productId);
+        if (stars == null || ratingSumDelta == 0) {
+            return;
+        }
+        stars.ratingSum += ratingSumDelta;
+        reweight(productContributions, productId, popularity(stars.ratingSum));
+        addVendorStars(stars.vendorId, ratingSumDelta);
+    }
+
+    // Highest weighted completions of the prefix; ties go to the shorter text.
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (normalized.isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+
+        if (normalized.length() <= RANKED_PREFIX_LENGTH) {
+            return heaviest(ranked.get(normalized), normalized, limit);
+        }
+        PriorityQueue<Entry> best = new PriorityQueue<>(limit + 1, RANK.reversed());
+        int scanned = 0;
+        for (Entry entry : entries.subMap(normalized, normalized + Character.MAX_VALUE).values()) {
+            if (++scanned > MAX_SCANNED) {
+                return heaviest(ranked.get(normalized.substring(0, RANKED_PREFIX_LENGTH)), normalized, limit);
+            }
+            best.add(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        while (!best.isEmpty()) {
+            Entry entry = best.poll();
+            suggestions.add(0, new Suggestion(entry.text, entry.type, entry.weight));
+        }
+        return suggestions;
+    }
+
+    // Walks a weight-ordered set, so the first matches are the heaviest. Only
+    // the MAX_SCANNED heaviest entries are checked against a longer prefix, so
+    // a rare completion of a crowded prefix may be left out.
+    private static List<Suggestion> heaviest(NavigableSet<Entry> candidates, String prefix, int limit) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (candidates == null) {
+            return suggestions;
+        }
+        int scanned = 0;
+        for (Entry entry : candidates) {
+            if (++scanned > MAX_SCANNED) {
+                break;
+            }
+            if (entry.key.startsWith(prefix)) {
+                suggestions.add(new Suggestion(entry.text, entry.type, entry.weight));
+                if (suggestions.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    // A product that moved to another vendor takes its stars along.
+    private synchronized void updateProduct(Long productId, Long vendorId, String name, String category,
+                                            boolean active) {
+        ProductStars stars = productStars.computeIfAbsent(productId, id -> new ProductStars(vendorId, 0L));
+        if (vendorId != null && !vendorId.equals(stars.vendorId)) {
+            addVendorStars(stars.vendorId, -stars.ratingSum);
+            stars.vendorId = vendorId;
+            addVendorStars(vendorId, stars.ratingSum);
+        }
+        if (active) {
+            contribute(productContributions, productId, name, PRODUCT, category, popularity(stars.ratingSum));
+        } else {
+            contribute(productContributions, productId, null, PRODUCT, null, 0);
+        }
+    }
+
+    private void addVendorStars(Long vendorId, long ratingSumDelta) {
+        if (vendorId == null || ratingSumDelta == 0) {
+            return;
+        }
+        long ratingSum = vendorStars.merge(vendorId, ratingSumDelta, Long::sum);
+        reweight(vendorContributions, vendorId, popularity(ratingSum));
+    }
+
+    private void reweight(Map<Long, Contribution> contributions, Long id, long weight) {
+        Contribution contribution = contributions.get(id);
+        if (contribution != null && contribution.weight != weight) {
+            contribute(contributions, id, contribution.texts[0], contribution.type, contribution.texts[1], weight);
+        }
+    }
+
+    // Replaces what the product or vendor contributes with its current name,
+    // category and weight. Writers are serialized so that an entry and its
+    // ranked copies change together.
+    private synchronized void contribute(Map<Long, Contribution> contributions, Long id, String name, String type,
+                                         String category, long weight) {
+        Contribution previous = contributions.get(id);
+        String[] current = keys(name, type, category);
+        String[] texts = {name, category};
+        for (int i = 0; i < current.length; i++) {
+            String previousKey = previous != null ? previous.keys[i] : null;
+            if (previousKey != null && previousKey.equals(current[i])) {
+                if (previous.weight != weight) {
+                    Entry entry = entries.get(previousKey);
+                    replace(entry, entry.withWeight(entry.weight - previous.weight + weight));
+                }
+                continue;
+            }
+            if (previousKey != null) {
+                Entry entry = entries.get(previousKey);
+                if (entry != null) {
+                    long remaining = entry.weight - previous.weight;
+                    replace(entry, remaining > 0 ? entry.withWeight(remaining) : null);
+                }
+            }
+            if (current[i] != null) {
+                Entry entry = entries.get(current[i]);
+                if (entry != null) {
+                    replace(entry, entry.withWeight(entry.weight + weight));
+                } else {
+                    replace(null, new Entry(current[i], texts[i].trim(), i == 0 ? type : CATEGORY, weight));
+                }
+            }
+        }
+        if (current[0] == null && current[1] == null) {
+            contributions.remove(id);
+        } else {
+            contributions.put(id, new Contribution(current, texts, type, weight));
+        }
+    }
+
+    private void replace(Entry previous, Entry updated) {
+        String key = previous != null ? previous.key : updated.key;
+        int textLength = Math.min(RANKED_PREFIX_LENGTH, key.indexOf(TYPE_SEPARATOR));
+        if (updated != null) {
+            entries.put(key, updated);
+        } else {
+            entries.remove(key);
+        }
+        for (int length = 1; length <= textLength; length++) {
+            String prefix = key.substring(0, length);
+            if (previous != null) {
+                NavigableSet<Entry> set = ranked.get(prefix);
+                set.remove(previous);
+                if (updated == null && set.isEmpty()) {
+                    ranked.remove(prefix);
+                }
+            }
+            if (updated != null) {
+                ranked.computeIfAbsent(prefix, p -> new ConcurrentSkipListSet<>(RANK)).add(updated);
+            }
+        }
+    }
+
+    private static long popularity(long ratingSum) {
+        return 1 + Math.max(0L, ratingSum);
+    }
+
+    private static String[] keys(String name, String type, String category) {
+        return new String[] {key(name, type), key(category, CATEGORY)};
+    }
+
+    private static String key(String text, String type) {
+        String normalized = normalize(text);
+        return normalized.isEmpty() ? null : normalized + TYPE_SEPARATOR + type;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String text;
+        private final String type;
+        private final long weight;
+
+        Entry(String key, String text, String type, long weight) {
+            this.key = key;
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+
+        Entry withWeight(long weight) {
+            return new Entry(key, text, type, weight);
+        }
+    }
+
+    // The keys a product or vendor adds its weight to, with the texts they came from
+    private static class Contribution {
+        private final String[] keys;
+        private final String[] texts;
+        private final String type;
+        private final long weight;
+
+        Contribution(String[] keys, String[] texts, String type, long weight) {
+            this.keys = keys;
+            this.texts = texts;
+            this.type = type;
+            this.weight = weight;
+        }
+    }
+
+    private static class ProductStars {
+        private Long vendorId;
+        private long ratingSum;
+
+        ProductStars(Long vendorId, long ratingSum) {
+            this.vendorId = vendorId;
+            this.ratingSum = ratingSum;
+        }
+    }
+}
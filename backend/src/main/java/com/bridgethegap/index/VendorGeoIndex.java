@@ -0,0 +1,95 @@
+package com.bridgethegap.index;
+
+import com.bridgethegap.dto.VendorLocationView;
+import com.bridgethegap.entity.Vendor;
+import com.bridgethegap.repository.VendorRepository;
+import com.bridgethegap.util.GeoGridIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+
+// In-process copy of every located vendor, kept current by VendorService so that
+// radius searches never have to scan the vendors table. Vendors are partitioned
+// by category inside each grid cell.
+@Component
+public class VendorGeoIndex {
+    
+    @Autowired
+    private VendorRepository vendorRepository;
+    
+    @Value("${vendor.geo-index.cell-size-deg:0.05}")
+    private double cellSizeDeg;
+    
+    private GeoGridIndex index;
+    
+    @PostConstruct
+    public void load() {
+        GeoGridIndex loaded = new GeoGridIndex(cellSizeDeg);
+        for (VendorLocationView location : vendorRepository.findVendorLocations()) {
+            loaded.put(location.getId(), location.getLatitude().doubleValue(),
+                       location.getLongitude().doubleValue(), partitionKey(location.getCategory()));
+        }
+        index = loaded;
+    }
+    
+    // Returns the vendor's previous indexed position, if it had one.
+    public GeoGridIndex.Point update(Vendor vendor) {
+        if (vendor.getId() == null) {
+            return null;
+        }
+        if (vendor.getLatitude() == null || vendor.getLongitude() == null) {
+            return index.remove(vendor.getId());
+        }
+        return index.put(vendor.getId(), vendor.getLatitude().doubleValue(), vendor.getLongitude().doubleValue(),
+                         partitionKey(vendor.getCategory()));
+    }
+    
+    // Applies a location ping to an indexed vendor; returns null if the vendor
+    // is not indexed yet.
+    public GeoGridIndex.Point move(Long vendorId, double latitude, double longitude) {
+        return index.moveIfPresent(vendorId, latitude, longitude);
+    }
+    
+    // Re-partitions an indexed vendor under its current category without moving
+    // it: the indexed position may come from a ping newer than the entity's.
+    // Returns null if the vendor is not indexed.
+    public GeoGridIndex.Point recategorize(Vendor vendor) {
+        return index.repartitionIfPresent(vendor.getId(), partitionKey(vendor.getCategory()));
+    }
+    
+    public GeoGridIndex.Point get(Long vendorId) {
+        return index.get(vendorId);
+    }
+    
+    public GeoGridIndex.Point remove(Long vendorId) {
+        return index.remove(vendorId);
+    }
+    
+    public int size() {
+        return index.size();
+    }
+    
+    public List<GeoGridIndex.Hit> findWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm) {
+        return index.withinRadius(latitude.doubleValue(), longitude.doubleValue(), radiusKm);
+    }
+    
+    public List<GeoGridIndex.Hit> findWithinRadius(BigDecimal latitude, BigDecimal longitude,
+                                                   double radiusKm, String category) {
+        return index.withinRadius(latitude.doubleValue(), longitude.doubleValue(), radiusKm,
+                                  partitionKey(category));
+    }
+    
+    public List<GeoGridIndex.Hit> findNearest(BigDecimal latitude, BigDecimal longitude, int k, double maxRadiusKm) {
+        return index.nearest(latitude.doubleValue(), longitude.doubleValue(), k, maxRadiusKm);
+    }
+    
+    // Category comparisons in MySQL are case-insensitive, so the partitions are too.
+    private String partitionKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,187 @@
+package com.bridgethegap.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds native radius queries for any table with latitude/longitude columns.
+// A BETWEEN bounding box runs first so the (latitude, longitude) index can be
+// used; the exact great-circle distance is only computed for rows inside the box.
+public class GeoRadiusQueryBuilder {
+    
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE_LAT = EARTH_RADIUS_KM * Math.PI / 180.0;
+    
+    private static final String DISTANCE_SQL =
+            "(6371 * acos(LEAST(1.0, cos(radians(:lat)) * cos(radians(latitude)) * " +
+            "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
+            "sin(radians(latitude))))) AS distance";
+    
+    private final String table;
+    private final List<String> predicates = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private String columns = "*";
+    private String orderBy = "distance";
+    private Integer limit;
+    private boolean spatial;
+    
+    private GeoRadiusQueryBuilder(String table) {
+        this.table = table;
+    }
+    
+    public static GeoRadiusQueryBuilder forTable(String table) {
+        return new GeoRadiusQueryBuilder(table);
+    }
+    
+    // Adds an extra AND predicate, e.g. where("category = :category", "category", value).
+    public GeoRadiusQueryBuilder where(String predicate, String parameterName, Object value) {
+        predicates.add(predicate);
+        parameters.put(parameterName, value);
+        return this;
+    }
+    
+    // Selects only the given columns (plus distance) instead of "*".
+    public GeoRadiusQueryBuilder select(String columns) {
+        this.columns = columns;
+        return this;
+    }
+    
+    public GeoRadiusQueryBuilder orderBy(String orderBy) {
+        this.orderBy = orderBy;
+        return this;
+    }
+    
+    // Uses the POINT column and its SPATIAL INDEX (database/spatial_locations.sql)
+    // instead of the DECIMAL latitude/longitude columns.
+    public GeoRadiusQueryBuilder spatial(boolean spatial) {
+        this.spatial = spatial;
+        return this;
+    }
+    
+    public GeoRadiusQueryBuilder limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+    
+    // Untyped variant for projections; each row is an Object[] of the selected
+    // columns followed by the distance.
+    public Query build(EntityManager entityManager, double latitude, double longitude, double radiusKm) {
+        Map<String, Object> params = new LinkedHashMap<>(parameters);
+        Query query = entityManager.createNativeQuery(toSql(latitude, longitude, radiusKm, params));
+        params.forEach(query::setParameter);
+        return query;
+    }
+    
+    public Query build(EntityManager entityManager, Class<?> resultClass,
+                       double latitude, double longitude, double radiusKm) {
+        Map<String, Object> params = new LinkedHashMap<>(parameters);
+        Query query = entityManager.createNativeQuery(toSql(latitude, longitude, radiusKm, params), resultClass);
+        params.forEach(query::setParameter);
+        return query;
+    }
+    
+    String toSql(double latitude, double longitude, double radiusKm, Map<String, Object> params) {
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double minLat = Math.max(-90.0, latitude - dLat);
+        double maxLat = Math.min(90.0, latitude + dLat);
+        params.put("radius", radiusKm);
+        
+        // Longitude is only bounded when the circle stays clear of the poles; a
+        // box crossing the antimeridian is split into two ranges.
+        double[][] lngRanges = {{-180.0, 180.0}};
+        double angular = radiusKm / EARTH_RADIUS_KM;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        if (Math.abs(latitude) + dLat < 90.0 && Math.sin(angular) < cosLat) {
+            double dLon = Math.toDegrees(Math.asin(Math.sin(angular) / cosLat));
+            double minLng = longitude - dLon;
+            double maxLng = longitude + dLon;
+            if (minLng < -180.0) {
+                lngRanges = new double[][] {{minLng + 360.0, 180.0}, {-180.0, maxLng}};
+            } else if (maxLng > 180.0) {
+                lngRanges = new double[][] {{minLng, 180.0}, {-180.0, maxLng - 360.0}};
+            } else {
+                lngRanges = new double[][] {{minLng, maxLng}};
+            }
+        }
+        
+        // The distance filter goes on a derived table rather than in a HAVING
+        // without GROUP BY, which only MySQL accepts; MySQL merges it back into
+        // one query over the bounding box.
+        StringBuilder sql = new StringBuilder("SELECT * FROM (SELECT ").append(columns).append(", ");
+        if (spatial) {
+            appendSpatialFilter(sql, latitude, longitude, minLat, maxLat, lngRanges, params);
+        } else {
+            params.put("lat", latitude);
+            params.put("lng", longitude);
+            appendDecimalFilter(sql, minLat, maxLat, lngRanges, params);
+        }
+        
+        for (String predicate : predicates) {
+            sql.append(" AND ").append(predicate);
+        }
+        sql.append(") within_radius WHERE distance < :radius ORDER BY ").append(orderBy);
+        if (limit != null) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+    
+    private void appendDecimalFilter(StringBuilder sql, double minLat, double maxLat, double[][] lngRanges,
+                                     Map<String, Object> params) {
+        params.put("minLat", minLat);
+        params.put("maxLat", maxLat);
+        sql.append(DISTANCE_SQL).append(" FROM ").append(table)
+           .append(" WHERE latitude BETWEEN :minLat AND :maxLat");
+        if (lngRanges.length == 2) {
+            params.put("minLng", lngRanges[0][0]);
+            params.put("maxLng", lngRanges[1][1]);
+            sql.append(" AND (longitude >= :minLng OR longitude <= :maxLng)");
+        } else if (lngRanges[0][0] > -180.0 || lngRanges[0][1] < 180.0) {
+            params.put("minLng", lngRanges[0][0]);
+            params.put("maxLng", lngRanges[0][1]);
+            sql.append(" AND longitude BETWEEN :minLng AND :maxLng");
+        } else {
+            sql.append(" AND longitude IS NOT NULL");
+        }
+    }
+    
+    // Spatial mode: the envelope is tested with MBRContains against the
+    // SPATIAL INDEX on 'location', and ST_Distance_Sphere gives the exact
+    // distance. MBRContains compares bounding rectangles, so the geodesic edges
+    // of the envelope only ever widen it. Rows without coordinates carry a
+    // placeholder point, so the latitude check stays.
+    private void appendSpatialFilter(StringBuilder sql, double latitude, double longitude,
+                                     double minLat, double maxLat, double[][] lngRanges,
+                                     Map<String, Object> params) {
+        params.put("origin", "POINT(" + longitude + " " + latitude + ")");
+        sql.append("ST_Distance_Sphere(location, ST_PointFromText(:origin, 4326, 'axis-order=long-lat'), ")
+           .append(EARTH_RADIUS_KM * 1000).append(") / 1000 AS distance FROM ").append(table)
+           .append(" WHERE ");
+        if (lngRanges.length == 1 && lngRanges[0][0] <= -180.0 && lngRanges[0][1] >= 180.0) {
+            // Near the poles the envelope would span every longitude
+            params.put("minLat", minLat);
+            params.put("maxLat", maxLat);
+            sql.append("latitude BETWEEN :minLat AND :maxLat");
+            return;
+        }
+        sql.append("latitude IS NOT NULL AND (");
+        for (int i = 0; i < lngRanges.length; i++) {
+            String name = "envelope" + i;
+            double minLng = lngRanges[i][0];
+            double maxLng = lngRanges[i][1];
+            params.put(name, "POLYGON((" + minLng + " " + minLat + ", " + maxLng + " " + minLat + ", " +
+                             maxLng + " " + maxLat + ", " + minLng + " " + maxLat + ", " +
+                             minLng + " " + minLat + "))");
+            if (i > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("MBRContains(ST_GeomFromText(:").append(name)
+               .append(", 4326, 'axis-order=long-lat'), location)");
+        }
+        sql.append(")");
+    }
+}
@@ -0,0 +1,61 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.entity.ProductRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProductRatingRepository extends JpaRepository<ProductRating, Long> {
+    
+    // Adds the deltas to the product's totals, creating the row on first use.
+    // One statement, so concurrent reviews of the same product never lose updates.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO product_ratings (product_id, rating_sum, review_count, " +
+                   "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "VALUES (:productId, :ratingSum, :reviewCount, :rating1, :rating2, :rating3, :rating4, :rating5, " +
+                   "CURRENT_TIMESTAMP) " +
+                   "ON DUPLICATE KEY UPDATE rating_sum = rating_sum + VALUES(rating_sum), " +
+                   "review_count = review_count + VALUES(review_count), " +
+                   "rating_1 = rating_1 + VALUES(rating_1), rating_2 = rating_2 + VALUES(rating_2), " +
+                   "rating_3 = rating_3 + VALUES(rating_3), rating_4 = rating_4 + VALUES(rating_4), " +
+                   "rating_5 = rating_5 + VALUES(rating_5), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int addDeltas(@Param("productId") Long productId, @Param("ratingSum") long ratingSum,
+                  @Param("reviewCount") long reviewCount, @Param("rating1") long rating1,
+                  @Param("rating2") long rating2, @Param("rating3") long rating3,
+                  @Param("rating4") long rating4, @Param("rating5") long rating5);
+    
+    // Locks the product's totals row until the transaction ends, creating an
+    // empty one before the product's first review.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO product_ratings (product_id, rating_sum, review_count, " +
+                   "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "VALUES (:productId, 0, 0, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP) " +
+                   "ON DUPLICATE KEY UPDATE product_id = product_id",
+           nativeQuery = true)
+    int lock(@Param("productId") Long productId);
+    
+    // Drift repair: recomputes every row from the reviews table
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM product_ratings", nativeQuery = true)
+    int deleteAllRows();
+    
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO product_ratings (product_id, rating_sum, review_count, " +
+                   "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "SELECT product_id, SUM(rating), COUNT(*), " +
+                   "SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END), CURRENT_TIMESTAMP " +
+                   "FROM reviews GROUP BY product_id",
+           nativeQuery = true)
+    int insertFromReviews();
+}
@@ -1,12 +1,23 @@
 package com.bridgethegap.repository;
 
+import com.bridgethegap.dto.ProductPopularityView;
+import com.bridgethegap.dto.ProductSearchView;
 import com.bridgethegap.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -19,11 +30,73 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByVendorIdAndIsActiveTrue(Long vendorId);
     
+    // Keyset pages in id order
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    
+    List<Product> findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    
+    List<Product> findByIsActiveTrueAndCategoryAndIdGreaterThanOrderByIdAsc(String category, Long afterId, Limit limit);
+    
+    List<Product> findByVendorIdAndIdGreaterThanOrderByIdAsc(Long vendorId, Long afterId, Limit limit);
+    
     @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.category = :category")
     List<Product> findActiveProductsByCategory(@Param("category") String category);
     
-    @Query("SELECT p FROM Product p WHERE p.isActive = true AND " +
+    @Query("SELECT p FROM Product p WHERE p.isActive = true AND (" +
            "LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+           "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
     List<Product> searchActiveProducts(@Param("searchTerm") String searchTerm);
+    
+    @Query("SELECT DISTINCT p.category FROM Product p WHERE p.isActive = true AND p.category IS NOT NULL")
+    List<String> findActiveCategories();
+    
+    String SEARCH_VIEW_SELECT = "SELECT p.id AS id, p.vendorId AS vendorId, p.name AS name, " +
+                                "p.description AS description, p.category AS category, p.price AS price, " +
+                                "p.isActive AS isActive FROM Product p";
+    
+    @Query(SEARCH_VIEW_SELECT)
+    List<ProductSearchView> findSearchViews();
+    
+    @Query("SELECT p.id AS id, p.category AS category, p.isActive AS isActive, p.createdAt AS createdAt, " +
+           "COALESCE(SUM(r.rating), 0) AS ratingSum, COUNT(r.id) AS reviewCount, MAX(r.createdAt) AS lastReviewAt " +
+           "FROM Product p LEFT JOIN Review r ON r.productId = p.id " +
+           "GROUP BY p.id, p.category, p.isActive, p.createdAt")
+    List<ProductPopularityView> findPopularityViews();
+    
+    @Query(SEARCH_VIEW_SELECT + " WHERE p.vendorId = :vendorId")
+    List<ProductSearchView> findSearchViewsByVendorId(@Param("vendorId") Long vendorId);
+    
+    @Query(SEARCH_VIEW_SELECT + " WHERE p.category = :category")
+    List<ProductSearchView> findSearchViewsByCategory(@Param("category") String category);
+    
+    @Query(SEARCH_VIEW_SELECT + " WHERE p.id IN :ids")
+    List<ProductSearchView> findSearchViewsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Set-based activation; only rows whose flag changes are updated and counted.
+    // Bulk updates skip @PreUpdate, so updatedAt is set here.
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.isActive = :active, p.updatedAt = :now " +
+           "WHERE p.vendorId = :vendorId AND (p.isActive IS NULL OR p.isActive <> :active)")
+    int updateActiveByVendorId(@Param("vendorId") Long vendorId, @Param("active") boolean active,
+                               @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.isActive = :active, p.updatedAt = :now " +
+           "WHERE p.category = :category AND (p.isActive IS NULL OR p.isActive <> :active)")
+    int updateActiveByCategory(@Param("category") String category, @Param("active") boolean active,
+                               @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.isActive = :active, p.updatedAt = :now " +
+           "WHERE p.id IN :ids AND (p.isActive IS NULL OR p.isActive <> :active)")
+    int updateActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("active") boolean active,
+                           @Param("now") LocalDateTime now);
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllOrderById();
 }
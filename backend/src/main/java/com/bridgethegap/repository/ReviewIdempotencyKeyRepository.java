@@ -0,0 +1,34 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.entity.ReviewIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReviewIdempotencyKeyRepository extends JpaRepository<ReviewIdempotencyKey, String> {
+    
+    // 1 if this call created the key, 0 if it already existed. A concurrent
+    // claim of the same key blocks on the row lock until the first one's
+    // transaction ends, so only one submission ever runs.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO review_idempotency_keys (idempotency_key, created_at) VALUES (:key, :now)",
+           nativeQuery = true)
+    int claim(@Param("key") String key, @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReviewIdempotencyKey k SET k.reviewId = :reviewId WHERE k.idempotencyKey = :key")
+    int setReviewId(@Param("key") String key, @Param("reviewId") Long reviewId);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ReviewIdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
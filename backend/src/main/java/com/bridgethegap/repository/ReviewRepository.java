@@ -1,16 +1,29 @@
 package com.bridgethegap.repository;
 
+import com.bridgethegap.dto.ReviewKeyView;
+import com.bridgethegap.dto.ReviewRatingView;
 import com.bridgethegap.entity.Review;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends JpaRepository<Review, Long>, ReviewRepositoryCustom {
     
     List<Review> findByProductId(Long productId);
     
@@ -18,12 +31,62 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     
     Optional<Review> findByUserIdAndProductId(Long userId, Long productId);
     
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.productId = :productId")
-    Double findAverageRatingByProductId(@Param("productId") Long productId);
+    // Keyset pages in id order
+    List<Review> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
     
-    @Query("SELECT COUNT(r) FROM Review r WHERE r.productId = :productId")
-    Long countReviewsByProductId(@Param("productId") Long productId);
+    // Review timelines, newest first, read straight off the (product_id|user_id,
+    // created_at DESC, id DESC) indexes. Later pages continue strictly after the
+    // last (createdAt, id) seen; the redundant createdAt <= bound gives MySQL a
+    // range to seek to.
+    List<Review> findByProductIdOrderByCreatedAtDescIdDesc(Long productId, Limit limit);
     
-    @Query("SELECT r FROM Review r WHERE r.productId = :productId ORDER BY r.createdAt DESC")
+    @Query("SELECT r FROM Review r WHERE r.productId = :productId AND r.createdAt <= :createdAt " +
+           "AND (r.createdAt < :createdAt OR r.id < :id) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findProductTimelineAfter(@Param("productId") Long productId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id, Limit limit);
+    
+    List<Review> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Limit limit);
+    
+    @Query("SELECT r FROM Review r WHERE r.userId = :userId AND r.createdAt <= :createdAt " +
+           "AND (r.createdAt < :createdAt OR r.id < :id) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findUserTimelineAfter(@Param("userId") Long userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT r.userId AS userId, r.productId AS productId FROM Review r WHERE r.id = :id")
+    Optional<ReviewKeyView> findKeyById(@Param("id") Long id);
+    
+    // Locking reads for review writes: the rating read here is the one the
+    // rating totals are corrected by, so no concurrent write may change or
+    // delete the row before this transaction ends. A single review is locked
+    // through unique_user_product, the index the upsert locks it by first.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.userId = :userId AND r.productId = :productId")
+    Optional<Review> findForUpdateByUserIdAndProductId(@Param("userId") Long userId,
+                                                       @Param("productId") Long productId);
+    
+    @Query(value = "SELECT product_id AS productId, rating AS rating FROM reviews WHERE id IN (:ids) " +
+                   "FOR UPDATE", nativeQuery = true)
+    List<ReviewRatingView> findRatingsByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Query(value = "SELECT product_id AS productId, rating AS rating FROM reviews WHERE user_id = :userId " +
+                   "FOR UPDATE", nativeQuery = true)
+    List<ReviewRatingView> findRatingsByUserIdForUpdate(@Param("userId") Long userId);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT r FROM Review r WHERE r.productId = :productId ORDER BY r.createdAt DESC, r.id DESC")
     List<Review> findReviewsByProductIdOrderByCreatedAtDesc(@Param("productId") Long productId);
+    
+    @Query("SELECT r FROM Review r WHERE r.userId = :userId ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findReviewsByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT r FROM Review r ORDER BY r.id")
+    Stream<Review> streamAllOrderById();
 }
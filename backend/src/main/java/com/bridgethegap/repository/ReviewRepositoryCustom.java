@@ -0,0 +1,10 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.dto.ReviewUpsertResult;
+
+import java.time.LocalDateTime;
+
+public interface ReviewRepositoryCustom {
+    
+    ReviewUpsertResult upsert(Long userId, Long productId, int rating, String comment, LocalDateTime now);
+}
@@ -0,0 +1,63 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.dto.ReviewUpsertResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    // Ratings fit in the low three bits of the key an update reports
+    private static final int RATING_BITS = 3;
+
+    // On a duplicate (user_id, product_id) the existing review is overwritten
+    // in place. The first assignment runs before the rating is replaced and
+    // sets LAST_INSERT_ID, which the statement reports as its generated key,
+    // to the review's id with the old rating in the low bits; the shift back
+    // leaves id as it was. updated_at always moves forward, so an update never
+    // leaves the row unchanged: the statement affects 1 row when it inserts
+    // and 2 when it updates.
+    private static final String UPSERT_SQL =
+        "INSERT INTO reviews (user_id, product_id, rating, comment, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE " +
+        "id = LAST_INSERT_ID(id << " + RATING_BITS + " | rating) >> " + RATING_BITS + ", " +
+        "rating = VALUES(rating), comment = VALUES(comment), " +
+        "updated_at = IF(updated_at >= VALUES(updated_at), updated_at + INTERVAL 1 SECOND, VALUES(updated_at))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // One statement: the row lock it takes on the review is the only lock
+    // until the caller applies the rating delta.
+    @Override
+    public ReviewUpsertResult upsert(Long userId, Long productId, int rating, String comment, LocalDateTime now) {
+        Timestamp at = Timestamp.valueOf(now);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int affected = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            ps.setLong(2, productId);
+            ps.setInt(3, rating);
+            ps.setString(4, comment);
+            ps.setTimestamp(5, at);
+            ps.setTimestamp(6, at);
+            return ps;
+        }, keyHolder);
+        // The driver reports one key per affected row; the first is the one set
+        long key = ((Number) keyHolder.getKeyList().get(0).values().iterator().next()).longValue();
+        if (affected == 1) {
+            return new ReviewUpsertResult(key, null);
+        }
+        if (affected != 2) {
+            throw new RuntimeException("Review upsert affected " + affected + " rows");
+        }
+        return new ReviewUpsertResult(key >> RATING_BITS, (int) (key & ((1 << RATING_BITS) - 1)));
+    }
+}
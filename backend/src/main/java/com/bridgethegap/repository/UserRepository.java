@@ -1,34 +1,35 @@
 package com.bridgethegap.repository;
 
 import com.bridgethegap.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
     
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    
     @Query("SELECT u FROM User u WHERE u.latitude IS NOT NULL AND u.longitude IS NOT NULL")
     List<User> findUsersWithLocation();
     
-    @Query(value = "SELECT *, " +
-            "(6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
-            "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
-            "sin(radians(latitude)))) AS distance " +
-            "FROM users " +
-            "WHERE latitude IS NOT NULL AND longitude IS NOT NULL " +
-            "HAVING distance < :radius " +
-            "ORDER BY distance", nativeQuery = true)
-    List<User> findUsersWithinRadius(@Param("lat") BigDecimal latitude, 
-                                   @Param("lng") BigDecimal longitude, 
-                                   @Param("radius") double radiusKm);
+    // Every row in id order for exports. A fetch size of Integer.MIN_VALUE makes
+    // Connector/J stream the rows instead of buffering the whole result; the
+    // connection is tied up until the caller, inside a transaction, closes it.
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAllOrderById();
 }
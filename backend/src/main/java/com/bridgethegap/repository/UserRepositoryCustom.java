@@ -0,0 +1,16 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.dto.NearbyUser;
+import com.bridgethegap.entity.User;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface UserRepositoryCustom {
+    
+    List<User> findUsersWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm);
+    
+    // Id + distance of users within the radius with id > afterId, in id order.
+    List<NearbyUser> findNearbyUsersAfter(BigDecimal latitude, BigDecimal longitude, double radiusKm,
+                                          long afterId, int limit);
+}
@@ -0,0 +1,50 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.dto.NearbyUser;
+import com.bridgethegap.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${geo.persistence.mode:decimal}")
+    private String persistenceMode;
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<User> findUsersWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm) {
+        return query("users")
+                .build(entityManager, User.class, latitude.doubleValue(), longitude.doubleValue(), radiusKm)
+                .getResultList();
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<NearbyUser> findNearbyUsersAfter(BigDecimal latitude, BigDecimal longitude, double radiusKm,
+                                                 long afterId, int limit) {
+        List<Object[]> rows = query("users")
+                .select("id")
+                .where("id > :afterId", "afterId", afterId)
+                .orderBy("id")
+                .limit(limit)
+                .build(entityManager, latitude.doubleValue(), longitude.doubleValue(), radiusKm)
+                .getResultList();
+        List<NearbyUser> users = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            users.add(new NearbyUser(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue()));
+        }
+        return users;
+    }
+    
+    private GeoRadiusQueryBuilder query(String table) {
+        return GeoRadiusQueryBuilder.forTable(table).spatial("spatial".equalsIgnoreCase(persistenceMode));
+    }
+}
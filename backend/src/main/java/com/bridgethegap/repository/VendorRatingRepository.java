@@ -0,0 +1,81 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.entity.VendorRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface VendorRatingRepository extends JpaRepository<VendorRating, Long> {
+    
+    // Adds a review delta of the product to its vendor's totals; the vendor id
+    // is resolved in the same statement, so a review write costs no extra read.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO vendor_ratings (vendor_id, rating_sum, review_count, " +
+                   "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "SELECT p.vendor_id, :ratingSum, :reviewCount, :rating1, :rating2, :rating3, :rating4, :rating5, " +
+                   "CURRENT_TIMESTAMP FROM products p WHERE p.id = :productId " +
+                   "ON DUPLICATE KEY UPDATE rating_sum = rating_sum + VALUES(rating_sum), " +
+                   "review_count = review_count + VALUES(review_count), " +
+                   "rating_1 = rating_1 + VALUES(rating_1), rating_2 = rating_2 + VALUES(rating_2), " +
+                   "rating_3 = rating_3 + VALUES(rating_3), rating_4 = rating_4 + VALUES(rating_4), " +
+                   "rating_5 = rating_5 + VALUES(rating_5), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int addProductDeltas(@Param("productId") Long productId, @Param("ratingSum") long ratingSum,
+                         @Param("reviewCount") long reviewCount, @Param("rating1") long rating1,
+                         @Param("rating2") long rating2, @Param("rating3") long rating3,
+                         @Param("rating4") long rating4, @Param("rating5") long rating5);
+    
+    // Adds a product's whole totals to the vendor it currently belongs to
+    // (after it moved there).
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO vendor_ratings (vendor_id, rating_sum, review_count, " +
+                   "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "SELECT p.vendor_id, pr.rating_sum, pr.review_count, " +
+                   "pr.rating_1, pr.rating_2, pr.rating_3, pr.rating_4, pr.rating_5, CURRENT_TIMESTAMP " +
+                   "FROM products p JOIN product_ratings pr ON pr.product_id = p.id WHERE p.id = :productId " +
+                   "ON DUPLICATE KEY UPDATE rating_sum = rating_sum + VALUES(rating_sum), " +
+                   "review_count = review_count + VALUES(review_count), " +
+                   "rating_1 = rating_1 + VALUES(rating_1), rating_2 = rating_2 + VALUES(rating_2), " +
+                   "rating_3 = rating_3 + VALUES(rating_3), rating_4 = rating_4 + VALUES(rating_4), " +
+                   "rating_5 = rating_5 + VALUES(rating_5), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int addProductTotals(@Param("productId") Long productId);
+    
+    // Takes a product's whole totals off its current vendor, before the
+    // product moves away or is deleted.
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE vendor_ratings v " +
+                   "JOIN products p ON p.vendor_id = v.vendor_id " +
+                   "JOIN product_ratings pr ON pr.product_id = p.id " +
+                   "SET v.rating_sum = v.rating_sum - pr.rating_sum, " +
+                   "v.review_count = v.review_count - pr.review_count, " +
+                   "v.rating_1 = v.rating_1 - pr.rating_1, v.rating_2 = v.rating_2 - pr.rating_2, " +
+                   "v.rating_3 = v.rating_3 - pr.rating_3, v.rating_4 = v.rating_4 - pr.rating_4, " +
+                   "v.rating_5 = v.rating_5 - pr.rating_5, v.updated_at = CURRENT_TIMESTAMP " +
+                   "WHERE p.id = :productId",
+           nativeQuery = true)
+    int subtractProductTotals(@Param("productId") Long productId);
+    
+    // Drift repair: recomputes every row from product_ratings
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM vendor_ratings", nativeQuery = true)
+    int deleteAllRows();
+    
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO vendor_ratings (vendor_id, rating_sum, review_count, " +
+                   "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+                   "SELECT p.vendor_id, SUM(pr.rating_sum), SUM(pr.review_count), SUM(pr.rating_1), " +
+                   "SUM(pr.rating_2), SUM(pr.rating_3), SUM(pr.rating_4), SUM(pr.rating_5), CURRENT_TIMESTAMP " +
+                   "FROM product_ratings pr JOIN products p ON p.id = pr.product_id GROUP BY p.vendor_id",
+           nativeQuery = true)
+    int insertFromProductRatings();
+}
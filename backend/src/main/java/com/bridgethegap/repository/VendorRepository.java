@@ -1,14 +1,19 @@
 package com.bridgethegap.repository;
 
+import com.bridgethegap.dto.VendorLocationView;
+import com.bridgethegap.dto.VendorNameView;
 import com.bridgethegap.entity.Vendor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VendorRepository extends JpaRepository<Vendor, Long> {
@@ -22,29 +27,20 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
     @Query("SELECT v FROM Vendor v WHERE v.latitude IS NOT NULL AND v.longitude IS NOT NULL")
     List<Vendor> findVendorsWithLocation();
     
-    @Query(value = "SELECT *, " +
-            "(6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
-            "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
-            "sin(radians(latitude)))) AS distance " +
-            "FROM vendors " +
-            "WHERE latitude IS NOT NULL AND longitude IS NOT NULL " +
-            "HAVING distance < :radius " +
-            "ORDER BY distance", nativeQuery = true)
-    List<Vendor> findVendorsWithinRadius(@Param("lat") BigDecimal latitude, 
-                                       @Param("lng") BigDecimal longitude, 
-                                       @Param("radius") double radiusKm);
-    
-    @Query(value = "SELECT *, " +
-            "(6371 * acos(cos(radians(:lat)) * cos(radians(latitude)) * " +
-            "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * " +
-            "sin(radians(latitude)))) AS distance " +
-            "FROM vendors " +
-            "WHERE latitude IS NOT NULL AND longitude IS NOT NULL " +
-            "AND category = :category " +
-            "HAVING distance < :radius " +
-            "ORDER BY distance", nativeQuery = true)
-    List<Vendor> findVendorsWithinRadiusByCategory(@Param("lat") BigDecimal latitude, 
-                                                  @Param("lng") BigDecimal longitude, 
-                                                  @Param("radius") double radiusKm,
-                                                  @Param("category") String category);
+    // Keyset pages in id order
+    List<Vendor> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    
+    List<Vendor> findByCategoryAndIdGreaterThanOrderByIdAsc(String category, Long afterId, Limit limit);
+    
+    @Query("SELECT v.id AS id, v.latitude AS latitude, v.longitude AS longitude, v.category AS category " +
+           "FROM Vendor v WHERE v.latitude IS NOT NULL AND v.longitude IS NOT NULL")
+    List<VendorLocationView> findVendorLocations();
+    
+    @Query("SELECT v.id AS id, v.name AS name, v.category AS category FROM Vendor v")
+    List<VendorNameView> findVendorNames();
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT v FROM Vendor v ORDER BY v.id")
+    Stream<Vendor> streamAllOrderById();
 }
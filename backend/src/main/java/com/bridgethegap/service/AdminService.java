@@ -1,15 +1,21 @@
 package com.bridgethegap.service;
 
+import com.bridgethegap.dto.CursorPage;
 import com.bridgethegap.dto.LoginRequest;
 import com.bridgethegap.entity.Admin;
 import com.bridgethegap.entity.Product;
 import com.bridgethegap.entity.Review;
 import com.bridgethegap.entity.User;
 import com.bridgethegap.entity.Vendor;
+import com.bridgethegap.index.NearbyVendorCache;
+import com.bridgethegap.index.ProductCatalogCache;
 import com.bridgethegap.repository.AdminRepository;
+import com.bridgethegap.util.CacheStats;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +36,18 @@ public class AdminService {
     
     @Autowired
     private ReviewService reviewService;
+    
+    @Autowired
+    private ProductRatingService productRatingService;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private NearbyVendorCache nearbyVendorCache;
+    
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
 
     public Admin loginAdmin(LoginRequest loginRequest) {
         Optional<Admin> adminOpt = adminRepository.findByUsername(loginRequest.getEmail());
@@ -53,6 +71,10 @@ public class AdminService {
         return userService.getAllUsers();
     }
     
+    public CursorPage<User> getAllUsersPage(Long after, int limit) {
+        return userService.getAllUsersPage(after, limit);
+    }
+    
     public void deleteUser(Long userId) {
         userService.deleteUser(userId);
     }
@@ -62,6 +84,10 @@ public class AdminService {
         return vendorService.getAllVendors();
     }
     
+    public CursorPage<Vendor> getAllVendorsPage(Long after, int limit) {
+        return vendorService.getAllVendorsPage(after, limit);
+    }
+    
     public void deleteVendor(Long vendorId) {
         vendorService.deleteVendor(vendorId);
     }
@@ -71,6 +97,10 @@ public class AdminService {
         return productService.getAllProductsForAdmin();
     }
     
+    public CursorPage<Product> getAllProductsPage(Long after, int limit) {
+        return productService.getAllProductsForAdminPage(after, limit);
+    }
+    
     public void deleteProduct(Long productId) {
         productService.deleteProduct(productId);
     }
@@ -79,8 +109,16 @@ public class AdminService {
         return productService.activateProduct(productId);
     }
 
-    public List<Product> activateProductsByVendor(Long vendorId) {
-        return productService.activateProductsByVendor(vendorId);
+    public int setVendorProductsActive(Long vendorId, boolean active) {
+        return productService.setActiveByVendor(vendorId, active);
+    }
+    
+    public int setCategoryProductsActive(String category, boolean active) {
+        return productService.setActiveByCategory(category, active);
+    }
+    
+    public int setProductsActive(List<Long> productIds, boolean active) {
+        return productService.setActiveByIds(productIds, active);
     }
     
     // Review Management
@@ -88,7 +126,32 @@ public class AdminService {
         return reviewService.getAllReviews();
     }
     
+    public CursorPage<Review> getAllReviewsPage(Long after, int limit) {
+        return reviewService.getAllReviewsPage(after, limit);
+    }
+    
     public void deleteReview(Long reviewId) {
         reviewService.deleteReview(reviewId);
     }
+    
+    public int deleteReviews(List<Long> reviewIds) {
+        return reviewService.deleteReviews(reviewIds);
+    }
+    
+    public void rebuildProductRatings() {
+        productRatingService.rebuild();
+    }
+    
+    // Data Export
+    public StreamingResponseBody exportData(String entity, String format, boolean gzip) {
+        return exportService.export(entity, format, gzip);
+    }
+    
+    // Cache Monitoring
+    public List<CacheStats> getCacheStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        stats.add(nearbyVendorCache.stats());
+        stats.addAll(productCatalogCache.stats());
+        return stats;
+    }
 }
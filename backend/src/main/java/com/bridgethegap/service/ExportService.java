@@ -0,0 +1,212 @@
+package com.bridgethegap.service;
+
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.entity.Review;
+import com.bridgethegap.entity.User;
+import com.bridgethegap.entity.Vendor;
+import com.bridgethegap.repository.ProductRepository;
+import com.bridgethegap.repository.ReviewRepository;
+import com.bridgethegap.repository.UserRepository;
+import com.bridgethegap.repository.VendorRepository;
+import com.bridgethegap.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Admin data dumps streamed row by row from the database straight to the
+// response as NDJSON or CSV. Rows are written and detached one at a time, so
+// memory stays flat whatever the table size. Columns are listed explicitly:
+// passwords are never exported.
+@Service
+public class ExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final List<Column<User>> USER_COLUMNS = List.of(
+        new Column<>("id", User::getId),
+        new Column<>("name", User::getName),
+        new Column<>("email", User::getEmail),
+        new Column<>("latitude", User::getLatitude),
+        new Column<>("longitude", User::getLongitude),
+        new Column<>("createdAt", User::getCreatedAt),
+        new Column<>("updatedAt", User::getUpdatedAt));
+
+    private static final List<Column<Vendor>> VENDOR_COLUMNS = List.of(
+        new Column<>("id", Vendor::getId),
+        new Column<>("name", Vendor::getName),
+        new Column<>("category", Vendor::getCategory),
+        new Column<>("email", Vendor::getEmail),
+        new Column<>("latitude", Vendor::getLatitude),
+        new Column<>("longitude", Vendor::getLongitude),
+        new Column<>("description", Vendor::getDescription),
+        new Column<>("phone", Vendor::getPhone),
+        new Column<>("address", Vendor::getAddress),
+        new Column<>("createdAt", Vendor::getCreatedAt),
+        new Column<>("updatedAt", Vendor::getUpdatedAt));
+
+    private static final List<Column<Product>> PRODUCT_COLUMNS = List.of(
+        new Column<>("id", Product::getId),
+        new Column<>("vendorId", Product::getVendorId),
+        new Column<>("name", Product::getName),
+        new Column<>("description", Product::getDescription),
+        new Column<>("price", Product::getPrice),
+        new Column<>("category", Product::getCategory),
+        new Column<>("imageUrl", Product::getImageUrl),
+        new Column<>("isActive", Product::getIsActive),
+        new Column<>("createdAt", Product::getCreatedAt),
+        new Column<>("updatedAt", Product::getUpdatedAt));
+
+    private static final List<Column<Review>> REVIEW_COLUMNS = List.of(
+        new Column<>("id", Review::getId),
+        new Column<>("userId", Review::getUserId),
+        new Column<>("productId", Review::getProductId),
+        new Column<>("rating", Review::getRating),
+        new Column<>("comment", Review::getComment),
+        new Column<>("createdAt", Review::getCreatedAt),
+        new Column<>("updatedAt", Review::getUpdatedAt));
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Validates the request up front; the returned body runs the query when the
+    // response is written.
+    public StreamingResponseBody export(String entity, String format, boolean gzip) {
+        String normalizedFormat = checkFormat(format);
+        switch (entity.toLowerCase(Locale.ROOT)) {
+            case "users":
+                return body(userRepository::streamAllOrderById, USER_COLUMNS, normalizedFormat, gzip);
+            case "vendors":
+                return body(vendorRepository::streamAllOrderById, VENDOR_COLUMNS, normalizedFormat, gzip);
+            case "products":
+                return body(productRepository::streamAllOrderById, PRODUCT_COLUMNS, normalizedFormat, gzip);
+            case "reviews":
+                return body(reviewRepository::streamAllOrderById, REVIEW_COLUMNS, normalizedFormat, gzip);
+            default:
+                throw new RuntimeException("Unknown export: " + entity);
+        }
+    }
+
+    public static String contentType(String format) {
+        return CSV.equals(checkFormat(format)) ? "text/csv" : "application/x-ndjson";
+    }
+
+    private static String checkFormat(String format) {
+        String normalized = format.toLowerCase(Locale.ROOT);
+        if (!NDJSON.equals(normalized) && !CSV.equals(normalized)) {
+            throw new RuntimeException("Unsupported format: " + format);
+        }
+        return normalized;
+    }
+
+    private <T> StreamingResponseBody body(Supplier<Stream<T>> query, List<Column<T>> columns,
+                                           String format, boolean gzip) {
+        return output -> {
+            OutputStream target = gzip ? new GZIPOutputStream(output, 64 * 1024) : output;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    if (CSV.equals(format)) {
+                        writeCsv(rows.iterator(), columns, writer);
+                    } else {
+                        writeNdjson(rows.iterator(), columns, writer);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+    }
+
+    private <T> void writeNdjson(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        while (rows.hasNext()) {
+            T row = rows.next();
+            json.writeStartObject();
+            for (Column<T> column : columns) {
+                json.writeFieldName(column.name);
+                json.writeObject(column.value.apply(row));
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+            entityManager.detach(row);
+        }
+        json.flush();
+    }
+
+    private <T> void writeCsv(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        List<Object> record = new ArrayList<>(columns.size());
+        for (Column<T> column : columns) {
+            record.add(column.name);
+        }
+        csv.writeRecord(record);
+        while (rows.hasNext()) {
+            T row = rows.next();
+            record.clear();
+            for (Column<T> column : columns) {
+                record.add(column.value.apply(row));
+            }
+            csv.writeRecord(record);
+            entityManager.detach(row);
+        }
+    }
+
+    private static class Column<T> {
+        private final String name;
+        private final Function<T, Object> value;
+
+        Column(String name, Function<T, Object> value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.bridgethegap.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coalesces high-frequency location pings. Only the latest coordinate per id is
+// kept, and pending coordinates are written in JDBC batches at most
+// location.ping.flush-interval-ms after they arrive. Every position write,
+// buffered or not, carries a sequence number and only lands on a row holding
+// an older one (location_seq), so a flush that loses the race with a newer
+// explicit update cannot put the older position back.
+@Service
+public class LocationPingBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationPingBuffer.class);
+
+    private static final String UPDATE_USERS_SQL =
+            "UPDATE users SET latitude = ?, longitude = ?, location_seq = ?, updated_at = ? " +
+            "WHERE id = ? AND location_seq < ?";
+    private static final String UPDATE_VENDORS_SQL =
+            "UPDATE vendors SET latitude = ?, longitude = ?, location_seq = ?, updated_at = ? " +
+            "WHERE id = ? AND location_seq < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${location.ping.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, Ping> pendingUsers = new ConcurrentHashMap<>();
+    private final Map<Long, Ping> pendingVendors = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public void recordUser(Long userId, BigDecimal latitude, BigDecimal longitude) {
+        pendingUsers.put(userId, new Ping(latitude, longitude, nextSequence()));
+    }
+
+    public void recordVendor(Long vendorId, BigDecimal latitude, BigDecimal longitude) {
+        pendingVendors.put(vendorId, new Ping(latitude, longitude, nextSequence()));
+    }
+
+    // Explicit position updates are written at once, in the caller's
+    // transaction, and replace any older unflushed ping.
+    public void writeUser(Long userId, BigDecimal latitude, BigDecimal longitude) {
+        write(pendingUsers, UPDATE_USERS_SQL, userId, new Ping(latitude, longitude, nextSequence()));
+    }
+
+    public void writeVendor(Long vendorId, BigDecimal latitude, BigDecimal longitude) {
+        write(pendingVendors, UPDATE_VENDORS_SQL, vendorId, new Ping(latitude, longitude, nextSequence()));
+    }
+
+    // Drops the unflushed ping of a deleted user or vendor
+    public Ping takeUser(Long userId) {
+        return pendingUsers.remove(userId);
+    }
+
+    public Ping takeVendor(Long vendorId) {
+        return pendingVendors.remove(vendorId);
+    }
+
+    // A snapshot of the unflushed user positions, for reads that have to see
+    // them before the next flush.
+    public Map<Long, Ping> pendingUsers() {
+        return new HashMap<>(pendingUsers);
+    }
+
+    public int pendingCount() {
+        return pendingUsers.size() + pendingVendors.size();
+    }
+
+    @Scheduled(fixedDelayString = "${location.ping.flush-interval-ms:2000}")
+    public void flush() {
+        flush(pendingUsers, UPDATE_USERS_SQL);
+        flush(pendingVendors, UPDATE_VENDORS_SQL);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Microseconds since the epoch, bumped to stay strictly increasing, so
+    // sequences also order sensibly across restarts.
+    private long nextSequence() {
+        long now = System.currentTimeMillis() * 1000;
+        return sequence.updateAndGet(last -> Math.max(now, last + 1));
+    }
+
+    private void write(Map<Long, Ping> pending, String sql, Long id, Ping ping) {
+        pending.computeIfPresent(id, (key, buffered) -> buffered.getSequence() < ping.getSequence() ? null : buffered);
+        jdbcTemplate.update(sql, ping.getLatitude(), ping.getLongitude(), ping.getSequence(),
+                            new Timestamp(System.currentTimeMillis()), id, ping.getSequence());
+    }
+
+    private void flush(Map<Long, Ping> pending, String sql) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        List<Ping> pings = new ArrayList<>();
+        for (Long id : pending.keySet()) {
+            Ping ping = pending.remove(id);
+            if (ping != null) {
+                ids.add(id);
+                pings.add(ping);
+            }
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Ping ping = pings.get(i);
+            args.add(new Object[] {ping.getLatitude(), ping.getLongitude(), ping.getSequence(), now, ids.get(i),
+                                   ping.getSequence()});
+        }
+
+        for (int from = 0; from < args.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, args.size());
+            try {
+                jdbcTemplate.batchUpdate(sql, args.subList(from, to));
+            } catch (RuntimeException e) {
+                // Put the batch back unless a newer ping has arrived meanwhile.
+                log.warn("Location ping flush failed, retrying next cycle: {}", e.getMessage());
+                for (int i = from; i < to; i++) {
+                    pending.putIfAbsent(ids.get(i), pings.get(i));
+                }
+            }
+        }
+    }
+
+    public static class Ping {
+        private final BigDecimal latitude;
+        private final BigDecimal longitude;
+        private final long sequence;
+
+        Ping(BigDecimal latitude, BigDecimal longitude, long sequence) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.sequence = sequence;
+        }
+
+        public BigDecimal getLatitude() {
+            return latitude;
+        }
+
+        public BigDecimal getLongitude() {
+            return longitude;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+    }
+}
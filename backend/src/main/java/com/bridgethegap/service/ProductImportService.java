@@ -0,0 +1,307 @@
+package com.bridgethegap.service;
+
+import com.bridgethegap.dto.ImportResult;
+import com.bridgethegap.entity.Product;
+import com.bridgethegap.repository.VendorRepository;
+import com.bridgethegap.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Bulk product import from CSV or NDJSON. Rows are parsed and validated as the
+// upload streams in, and valid rows are written with one JDBC batch insert per
+// product.import.batch-size rows. Products use IDENTITY ids, which stop
+// Hibernate from batching inserts, so the batch goes through JdbcTemplate and
+// the generated ids are read back from the batch itself.
+@Service
+public class ProductImportService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (vendor_id, name, description, price, category, image_url, is_active, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${product.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${product.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // Imports every row; vendorId, when given, applies to all rows and
+    // overrides any vendorId column.
+    public ImportResult importProducts(InputStream input, String format, Long vendorId) throws IOException {
+        if (vendorId != null && !vendorRepository.existsById(vendorId)) {
+            throw new RuntimeException("Vendor not found");
+        }
+
+        Import run = new Import(vendorId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv":
+                readCsv(reader, run);
+                break;
+            case "ndjson":
+            case "jsonl":
+                readNdjson(reader, run);
+                break;
+            default:
+                throw new RuntimeException("Unsupported format: " + format);
+        }
+        run.flush();
+        return run.result;
+    }
+
+    private void readCsv(BufferedReader reader, Import run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new RuntimeException("CSV header must include name and price");
+        }
+
+        List<String> record;
+        long row = 0;
+        while ((record = csv.readRecord()) != null) {
+            row++;
+            try {
+                Product product = new Product();
+                product.setName(field(record, columns, "name"));
+                product.setDescription(field(record, columns, "description"));
+                product.setCategory(field(record, columns, "category"));
+                product.setImageUrl(field(record, columns, "imageurl"));
+                String price = field(record, columns, "price");
+                product.setPrice(price != null ? new BigDecimal(price) : null);
+                String active = field(record, columns, "isactive");
+                product.setIsActive(active == null || Boolean.parseBoolean(active));
+                String vendor = field(record, columns, "vendorid");
+                product.setVendorId(vendor != null ? Long.valueOf(vendor) : null);
+                run.add(row, product);
+            } catch (NumberFormatException e) {
+                run.fail(row, "Invalid number: " + e.getMessage());
+            }
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                Product product = objectMapper.readValue(line, Product.class);
+                product.setId(null);
+                if (product.getIsActive() == null) {
+                    product.setIsActive(true);
+                }
+                run.add(row, product);
+            } catch (JsonProcessingException e) {
+                run.fail(row, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // State of one import: the pending batch, known vendors and the result.
+    private class Import {
+        private final Long vendorId;
+        private final ImportResult result = new ImportResult();
+        private final List<Product> batch = new ArrayList<>();
+        private final List<Long> batchRows = new ArrayList<>();
+        private final Map<Long, Boolean> vendorExists = new HashMap<>();
+
+        Import(Long vendorId) {
+            this.vendorId = vendorId;
+        }
+
+        void add(long row, Product product) {
+            if (vendorId != null) {
+                product.setVendorId(vendorId);
+            }
+            String error = validate(product);
+            if (error != null) {
+                fail(row, error);
+                return;
+            }
+            batch.add(product);
+            batchRows.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void fail(long row, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < maxReportedErrors) {
+                result.getErrors().add(new ImportResult.RowError(row, message));
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                List<Product> inserted;
+                try {
+                    insert(batch);
+                    inserted = new ArrayList<>(batch);
+                } catch (RuntimeException e) {
+                    inserted = insertRowByRow();
+                }
+                result.setImported(result.getImported() + inserted.size());
+                productService.indexInserted(inserted);
+            } finally {
+                batch.clear();
+                batchRows.clear();
+            }
+        }
+
+        // A rejected batch is rolled back as a whole; retrying its rows one at a
+        // time keeps the good ones and reports the database error per row.
+        private List<Product> insertRowByRow() {
+            List<Product> inserted = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Product product = batch.get(i);
+                try {
+                    insert(List.of(product));
+                    inserted.add(product);
+                } catch (RuntimeException e) {
+                    fail(batchRows.get(i), "Insert failed: " + e.getMessage());
+                }
+            }
+            return inserted;
+        }
+
+        private String validate(Product product) {
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                return violations.stream().map(ConstraintViolation::getMessage).sorted()
+                        .collect(Collectors.joining("; "));
+            }
+            if (product.getName().length() > 200) {
+                return "Product name must be at most 200 characters";
+            }
+            if (product.getCategory() != null && product.getCategory().length() > 50) {
+                return "Category must be at most 50 characters";
+            }
+            if (product.getImageUrl() != null && product.getImageUrl().length() > 500) {
+                return "Image URL must be at most 500 characters";
+            }
+            BigDecimal price = product.getPrice().stripTrailingZeros();
+            if (price.scale() > 2 || price.precision() - price.scale() > 8) {
+                return "Price must have at most 8 integer digits and 2 decimals";
+            }
+            if (!vendorExists.computeIfAbsent(product.getVendorId(), vendorRepository::existsById)) {
+                return "Vendor not found";
+            }
+            return null;
+        }
+    }
+
+    // Inserts the batch in one transaction and sets the generated ids. The
+    // transaction rolls back unless every row got an id.
+    private void insert(List<Product> products) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Product product = products.get(i);
+                        ps.setLong(1, product.getVendorId());
+                        ps.setString(2, product.getName());
+                        ps.setString(3, product.getDescription());
+                        ps.setBigDecimal(4, product.getPrice());
+                        ps.setString(5, product.getCategory());
+                        ps.setString(6, product.getImageUrl());
+                        ps.setBoolean(7, product.getIsActive());
+                        ps.setTimestamp(8, timestamp);
+                        ps.setTimestamp(9, timestamp);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return products.size();
+                    }
+                },
+                keyHolder);
+            if (keyHolder.getKeyList().size() != products.size()) {
+                throw new RuntimeException("Expected " + products.size() + " generated ids, got "
+                                           + keyHolder.getKeyList().size());
+            }
+        });
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            product.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+        }
+    }
+}
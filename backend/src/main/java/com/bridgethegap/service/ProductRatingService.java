@@ -0,0 +1,245 @@
+package com.bridgethegap.service;
+
+import com.bridgethegap.dto.RatingSummary;
+import com.bridgethegap.dto.ReviewRatingView;
+import com.bridgethegap.entity.ProductRating;
+import com.bridgethegap.entity.RatingTotals;
+import com.bridgethegap.entity.VendorRating;
+import com.bridgethegap.index.ProductRankingIndex;
+import com.bridgethegap.index.SuggestionIndex;
+import com.bridgethegap.repository.ProductRatingRepository;
+import com.bridgethegap.repository.VendorRatingRepository;
+import com.bridgethegap.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-product rating totals (sum, count and star histogram) in product_ratings,
+// and per-vendor rollups of them in vendor_ratings. Every review write reports
+// its change here from inside its own transaction, so the totals commit or
+// roll back together with the review. The popularity ranking and the
+// suggestion weights are in memory and only hear about a change once its
+// transaction has committed.
+@Service
+public class ProductRatingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductRatingService.class);
+
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+    private static final int MAX_LOOKUP_IDS = 1000;
+
+    @Autowired
+    private ProductRatingRepository productRatingRepository;
+
+    @Autowired
+    private VendorRatingRepository vendorRatingRepository;
+
+    @Autowired
+    private ProductRankingIndex productRankingIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    public void reviewAdded(Long productId, int rating, LocalDateTime at) {
+        Delta delta = new Delta();
+        delta.add(rating);
+        apply(productId, delta);
+        TransactionHooks.afterCommit(() -> {
+            productRankingIndex.reviewAdded(productId, rating, at);
+            suggestionIndex.ratingChanged(productId, rating);
+        });
+    }
+
+    public void reviewChanged(Long productId, int previousRating, int rating, LocalDateTime at) {
+        if (previousRating != rating) {
+            Delta delta = new Delta();
+            delta.remove(previousRating);
+            delta.add(rating);
+            apply(productId, delta);
+        }
+        TransactionHooks.afterCommit(() -> {
+            productRankingIndex.reviewChanged(productId, previousRating, rating, at);
+            suggestionIndex.ratingChanged(productId, rating - previousRating);
+        });
+    }
+
+    public void reviewRemoved(Long productId, int rating) {
+        Delta delta = new Delta();
+        delta.remove(rating);
+        apply(productId, delta);
+        TransactionHooks.afterCommit(() -> {
+            productRankingIndex.reviewRemoved(productId, rating);
+            suggestionIndex.ratingChanged(productId, -rating);
+        });
+    }
+
+    // Bulk deletes and the user delete cascade: one statement per product. All
+    // product rows are written, in id order, before any vendor row, so that
+    // concurrent writers always take the locks in the same order.
+    public void reviewsRemoved(List<ReviewRatingView> reviews) {
+        Map<Long, Delta> deltas = new TreeMap<>();
+        for (ReviewRatingView review : reviews) {
+            deltas.computeIfAbsent(review.getProductId(), id -> new Delta()).remove(review.getRating());
+        }
+        deltas.forEach(this::applyToProduct);
+        deltas.forEach(this::applyToVendor);
+        TransactionHooks.afterCommit(() -> {
+            for (ReviewRatingView review : reviews) {
+                productRankingIndex.reviewRemoved(review.getProductId(), review.getRating());
+            }
+            deltas.forEach((productId, delta) -> suggestionIndex.ratingChanged(productId, delta.ratingSum));
+        });
+    }
+
+    // A product's totals follow it between vendors: call productLeavingVendor
+    // before the vendor_id change (or the delete) reaches the database and
+    // productJoinedVendor after it. The product's totals row is locked before
+    // the vendor row, the order a review's delta takes them in, so a review of
+    // the product waits for the move instead of deadlocking on the vendor row.
+    public void productLeavingVendor(Long productId) {
+        productRatingRepository.lock(productId);
+        vendorRatingRepository.subtractProductTotals(productId);
+    }
+
+    public void productJoinedVendor(Long productId) {
+        vendorRatingRepository.addProductTotals(productId);
+    }
+
+    public RatingSummary getRating(Long productId) {
+        return productRatingRepository.findById(productId)
+                .map(rating -> summary("product " + productId, rating))
+                .orElseGet(RatingSummary::empty);
+    }
+
+    // Products without reviews are left out.
+    public Map<Long, RatingSummary> getRatings(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        Map<Long, RatingSummary> ratings = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, ids.size()));
+            for (ProductRating rating : productRatingRepository.findAllById(batch)) {
+                ratings.put(rating.getProductId(), summary("product " + rating.getProductId(), rating));
+            }
+        }
+        return ratings;
+    }
+
+    // Batch lookup for listings: every requested id is present, products
+    // without reviews with empty totals.
+    public Map<Long, RatingSummary> getRatingsForAll(Collection<Long> productIds) {
+        if (productIds.size() > MAX_LOOKUP_IDS) {
+            throw new RuntimeException("At most " + MAX_LOOKUP_IDS + " product ids per request");
+        }
+        Map<Long, RatingSummary> found = getRatings(productIds);
+        Map<Long, RatingSummary> ratings = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            ratings.put(productId, found.getOrDefault(productId, RatingSummary.empty()));
+        }
+        return ratings;
+    }
+
+    public RatingSummary getVendorRating(Long vendorId) {
+        return vendorRatingRepository.findById(vendorId)
+                .map(rating -> summary("vendor " + vendorId, rating))
+                .orElseGet(RatingSummary::empty);
+    }
+
+    // Vendors without reviews are left out.
+    public Map<Long, RatingSummary> getVendorRatings(Collection<Long> vendorIds) {
+        List<Long> ids = List.copyOf(vendorIds);
+        Map<Long, RatingSummary> ratings = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, ids.size()));
+            for (VendorRating rating : vendorRatingRepository.findAllById(batch)) {
+                ratings.put(rating.getVendorId(), summary("vendor " + rating.getVendorId(), rating));
+            }
+        }
+        return ratings;
+    }
+
+    // Recomputes every product's totals from the reviews table, then every
+    // vendor's from those, in one transaction, and reloads the popularity
+    // ranking and the suggestions from the new totals once that has committed.
+    // Off by default; set product.ratings.rebuild-cron to schedule it.
+    @Scheduled(cron = "${product.ratings.rebuild-cron:-}")
+    @Transactional
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        productRatingRepository.deleteAllRows();
+        int products = productRatingRepository.insertFromReviews();
+        vendorRatingRepository.deleteAllRows();
+        int vendors = vendorRatingRepository.insertFromProductRatings();
+        TransactionHooks.afterCommit(() -> {
+            productRankingIndex.load();
+            suggestionIndex.load();
+        });
+        log.info("Rebuilt ratings of {} products and {} vendors in {} ms", products, vendors,
+                 System.currentTimeMillis() - start);
+    }
+
+    // Product row first, then the vendor's: every writer takes the locks in
+    // that order.
+    private void apply(Long productId, Delta delta) {
+        applyToProduct(productId, delta);
+        applyToVendor(productId, delta);
+    }
+
+    private void applyToProduct(Long productId, Delta delta) {
+        productRatingRepository.addDeltas(productId, delta.ratingSum, delta.reviewCount, delta.histogram[0],
+                                          delta.histogram[1], delta.histogram[2], delta.histogram[3],
+                                          delta.histogram[4]);
+    }
+
+    private void applyToVendor(Long productId, Delta delta) {
+        vendorRatingRepository.addProductDeltas(productId, delta.ratingSum, delta.reviewCount, delta.histogram[0],
+                                                 delta.histogram[1], delta.histogram[2], delta.histogram[3],
+                                                 delta.histogram[4]);
+    }
+
+    // Totals only go negative if a delta was applied twice or to the wrong row;
+    // they are reported as they are, and a rebuild() recomputes them.
+    private static RatingSummary summary(String owner, RatingTotals totals) {
+        long[] histogram = {
+            totals.getRating1(), totals.getRating2(), totals.getRating3(), totals.getRating4(), totals.getRating5()
+        };
+        boolean negative = totals.getRatingSum() < 0 || totals.getReviewCount() < 0;
+        for (long count : histogram) {
+            negative |= count < 0;
+        }
+        if (negative) {
+            log.warn("Negative rating totals for {}: sum {}, count {}, histogram {}", owner, totals.getRatingSum(),
+                     totals.getReviewCount(), Arrays.toString(histogram));
+        }
+        return new RatingSummary(totals.getRatingSum(), totals.getReviewCount(), histogram);
+    }
+
+    private static class Delta {
+        private long ratingSum;
+        private long reviewCount;
+        private final long[] histogram = new long[5];
+
+        void add(int rating) {
+            ratingSum += rating;
+            reviewCount++;
+            histogram[rating - 1]++;
+        }
+
+        void remove(int rating) {
+            ratingSum -= rating;
+            reviewCount--;
+            histogram[rating - 1]--;
+        }
+    }
+}
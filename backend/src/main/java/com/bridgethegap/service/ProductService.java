@@ -1,34 +1,133 @@
 package com.bridgethegap.service;
 
+import com.bridgethegap.dto.CursorPage;
+import com.bridgethegap.dto.NearbyProduct;
+import com.bridgethegap.dto.ProductSearchResult;
+import com.bridgethegap.dto.ProductSearchView;
+import com.bridgethegap.dto.RatedProduct;
+import com.bridgethegap.dto.RatingSummary;
 import com.bridgethegap.entity.Product;
+import com.bridgethegap.index.ProductCatalogCache;
+import com.bridgethegap.index.ProductRankingIndex;
+import com.bridgethegap.index.ProductSearchIndex;
+import com.bridgethegap.index.SuggestionIndex;
+import com.bridgethegap.index.VendorGeoIndex;
 import com.bridgethegap.repository.ProductRepository;
+import com.bridgethegap.repository.VendorRepository;
+import com.bridgethegap.util.GeoGridIndex;
+import com.bridgethegap.util.LocationUtil;
+import com.bridgethegap.util.TextIndex;
+import com.bridgethegap.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
     
+    private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+    
+    private static final int DEFAULT_SEARCH_RESULTS = 50;
+    private static final int MAX_SEARCH_RESULTS = 500;
+    private static final int MAX_NEARBY_RESULTS = 200;
+    private static final double MAX_NEARBY_RADIUS_KM = 100.0;
+    // Nearby matches pre-ranked by distance and relevance that get a rating
+    // lookup, per requested result
+    private static final int RATED_CANDIDATES_PER_RESULT = 4;
+    private static final int MAX_BULK_IDS = 10000;
+    
+    // Nearby ranking: each component is scaled to 0..1 before weighting
+    private static final double DISTANCE_WEIGHT = 0.4;
+    private static final double RELEVANCE_WEIGHT = 0.4;
+    private static final double RATING_WEIGHT = 0.2;
+    // Averages over few reviews are pulled toward this prior
+    private static final double PRIOR_RATING = 3.0;
+    private static final int PRIOR_REVIEWS = 5;
+    
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private VendorRepository vendorRepository;
+    
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+    
+    @Autowired
+    private VendorGeoIndex vendorGeoIndex;
+    
+    @Autowired
+    private ProductRatingService productRatingService;
+    
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+    
+    @Autowired
+    private ProductRankingIndex productRankingIndex;
+    
+    @Value("${product.cache.warm-up:false}")
+    private boolean cacheWarmUp;
+    
     public Product addProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        reindex(saved);
+        return saved;
     }
     
     public List<Product> getAllProducts() {
         return productRepository.findByIsActiveTrue();
     }
     
+    public CursorPage<Product> getAllProductsPage(Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Product> products = productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+            after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(products, limit, Product::getId);
+    }
+    
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+        return productCatalogCache.getProduct(id, this::findProduct);
     }
     
+    // A vendorId moves the product, rating totals included, to another vendor.
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
+        Product product = findProduct(id);
+        String previousCategory = product.getCategory();
+        Long previousVendorId = product.getVendorId();
         
+        boolean moved = productDetails.getVendorId() != null && !productDetails.getVendorId().equals(previousVendorId);
+        if (moved) {
+            if (!vendorRepository.existsById(productDetails.getVendorId())) {
+                throw new RuntimeException("Vendor not found");
+            }
+            productRatingService.productLeavingVendor(id);
+            product.setVendorId(productDetails.getVendorId());
+        }
         if (productDetails.getName() != null) {
             product.setName(productDetails.getName());
         }
@@ -48,45 +147,330 @@ public class ProductService {
             product.setIsActive(productDetails.getIsActive());
         }
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        if (moved) {
+            productRepository.flush();
+            productRatingService.productJoinedVendor(id);
+        }
+        TransactionHooks.afterCommit(() -> {
+            reindex(saved);
+            productCatalogCache.invalidate(id, previousCategory, previousVendorId);
+        });
+        return saved;
     }
     
+    @Transactional
     public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Product not found");
-        }
+        Product product = findProduct(id);
+        productRatingService.productLeavingVendor(id);
         productRepository.deleteById(id);
+        TransactionHooks.afterCommit(() -> {
+            productCatalogCache.invalidate(product);
+            productSearchIndex.remove(id);
+            suggestionIndex.removeProduct(id);
+            productRankingIndex.removeProduct(id);
+        });
     }
 
     public Product activateProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = findProduct(id);
         product.setIsActive(true);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        reindex(saved);
+        return saved;
     }
 
-    public List<Product> activateProductsByVendor(Long vendorId) {
-        List<Product> vendorProducts = productRepository.findByVendorId(vendorId);
-        for (Product p : vendorProducts) {
-            p.setIsActive(true);
+    // Bulk activation: one UPDATE each, returning the number of products whose
+    // flag changed. Affected products are re-read as search views only to
+    // refresh the indexes and caches.
+    public int setActiveByVendor(Long vendorId, boolean active) {
+        int updated = productRepository.updateActiveByVendorId(vendorId, active, LocalDateTime.now());
+        if (updated > 0) {
+            reindexActivation(productRepository.findSearchViewsByVendorId(vendorId), active);
+        }
+        return updated;
+    }
+    
+    public int setActiveByCategory(String category, boolean active) {
+        if (category == null || category.isBlank()) {
+            throw new RuntimeException("Category is required");
+        }
+        int updated = productRepository.updateActiveByCategory(category, active, LocalDateTime.now());
+        if (updated > 0) {
+            reindexActivation(productRepository.findSearchViewsByCategory(category), active);
+        }
+        return updated;
+    }
+    
+    public int setActiveByIds(Collection<Long> ids, boolean active) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new RuntimeException("At most " + MAX_BULK_IDS + " ids per request");
         }
-        return productRepository.saveAll(vendorProducts);
+        int updated = productRepository.updateActiveByIdIn(ids, active, LocalDateTime.now());
+        if (updated > 0) {
+            reindexActivation(productRepository.findSearchViewsByIdIn(ids), active);
+        }
+        return updated;
+    }
+    
+    // Most popular active products first, optionally within a category; the
+    // cursor is the score and id of the last product ranked, which may have
+    // been deleted before it could be loaded.
+    public CursorPage<Product> getPopularProductsPage(String category, String after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<ProductRankingIndex.Ranked> ranked = productRankingIndex.top(category, after, limit);
+        List<Product> products = loadInOrder(ranked.stream().map(ProductRankingIndex.Ranked::getId).toList());
+        String nextCursor = ranked.size() < limit ? null : ranked.get(ranked.size() - 1).toCursor();
+        return new CursorPage<>(products, nextCursor);
     }
     
     public List<Product> getProductsByVendorId(Long vendorId) {
         // Return all products for the vendor to match Admin visibility.
         // If you want to filter, ensure legacy rows have isActive properly set first.
-        return productRepository.findByVendorId(vendorId);
+        return productCatalogCache.getByVendor(vendorId, productRepository::findByVendorId);
+    }
+    
+    public CursorPage<Product> getProductsByVendorIdPage(Long vendorId, Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Product> products = productRepository.findByVendorIdAndIdGreaterThanOrderByIdAsc(
+            vendorId, after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(products, limit, Product::getId);
     }
     
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findActiveProductsByCategory(category);
+        return productCatalogCache.getByCategory(category, productRepository::findActiveProductsByCategory);
+    }
+    
+    public CursorPage<Product> getProductsByCategoryPage(String category, Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Product> products = productRepository.findByIsActiveTrueAndCategoryAndIdGreaterThanOrderByIdAsc(
+            category, after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(products, limit, Product::getId);
     }
     
     public List<Product> searchProducts(String searchTerm) {
-        return productRepository.searchActiveProducts(searchTerm);
+        return searchProducts(searchTerm, DEFAULT_SEARCH_RESULTS);
+    }
+    
+    // Relevance-ranked active products matching every word of the search term
+    public List<Product> searchProducts(String searchTerm, int limit) {
+        return searchProducts(searchTerm, limit, null);
+    }
+    
+    // A search term without any word lists active products in id order, like
+    // the LIKE '%%' search this replaced, but capped at limit as well.
+    public List<Product> searchProducts(String searchTerm, int limit, String category) {
+        if (limit <= 0 || limit > MAX_SEARCH_RESULTS) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        if (TextIndex.tokenize(searchTerm).isEmpty()) {
+            return category == null || category.isBlank()
+                    ? productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(0L, Limit.of(limit))
+                    : productRepository.findByIsActiveTrueAndCategoryAndIdGreaterThanOrderByIdAsc(
+                          category, 0L, Limit.of(limit));
+        }
+        return loadInOrder(productSearchIndex.search(searchTerm, limit, category));
+    }
+    
+    public ProductSearchResult searchProductsWithFacets(String searchTerm, int limit, String category) {
+        List<Product> products = searchProducts(searchTerm, limit, category);
+        return new ProductSearchResult(products, productSearchIndex.facets(searchTerm, category));
+    }
+    
+    // Active products of vendors within the radius, optionally matching a search
+    // term and category, ranked by distance, relevance and rating together.
+    public List<NearbyProduct> getProductsNearby(BigDecimal latitude, BigDecimal longitude, double radiusKm,
+                                                 String searchTerm, String category, int limit) {
+        if (!LocationUtil.isValidCoordinate(latitude, longitude)) {
+            throw new RuntimeException("Invalid coordinates");
+        }
+        if (!(radiusKm > 0 && radiusKm <= MAX_NEARBY_RADIUS_KM)) {
+            throw new RuntimeException("Radius must be greater than 0 and at most " + MAX_NEARBY_RADIUS_KM);
+        }
+        if (limit <= 0 || limit > MAX_NEARBY_RESULTS) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_NEARBY_RESULTS);
+        }
+        
+        Map<Long, Double> vendorDistances = new HashMap<>();
+        for (GeoGridIndex.Hit hit : vendorGeoIndex.findWithinRadius(latitude, longitude, radiusKm)) {
+            vendorDistances.put(hit.getId(), hit.getDistanceKm());
+        }
+        Map<Long, Float> relevance = productSearchIndex.matchVendorProducts(
+            vendorDistances.keySet(), category, searchTerm);
+        if (relevance.isEmpty()) {
+            return new ArrayList<>();
+        }
+        float maxRelevance = 0;
+        for (float value : relevance.values()) {
+            maxRelevance = Math.max(maxRelevance, value);
+        }
+        
+        // The rating term moves a score by at most RATING_WEIGHT, so only the
+        // best candidates by distance and relevance are worth a rating lookup.
+        int candidates = limit * RATED_CANDIDATES_PER_RESULT;
+        PriorityQueue<NearbyCandidate> best = new PriorityQueue<>(candidates + 1,
+            Comparator.comparingDouble((NearbyCandidate candidate) -> candidate.score)
+                    .thenComparing(candidate -> candidate.productId, Comparator.reverseOrder()));
+        for (Map.Entry<Long, Float> match : relevance.entrySet()) {
+            Long productId = match.getKey();
+            Double distanceKm = vendorDistances.get(productSearchIndex.vendorIdOf(productId));
+            if (distanceKm == null) {
+                continue;
+            }
+            double score = DISTANCE_WEIGHT * (1.0 - distanceKm / radiusKm)
+                           + RELEVANCE_WEIGHT * match.getValue() / maxRelevance;
+            best.add(new NearbyCandidate(productId, distanceKm, score));
+            if (best.size() > candidates) {
+                best.poll();
+            }
+        }
+        List<Long> candidateIds = new ArrayList<>(best.size());
+        for (NearbyCandidate candidate : best) {
+            candidateIds.add(candidate.productId);
+        }
+        Map<Long, RatingSummary> ratings = productRatingService.getRatings(candidateIds);
+        
+        Map<Long, NearbyProduct> ranked = new HashMap<>();
+        for (NearbyCandidate candidate : best) {
+            RatingSummary rating = ratings.get(candidate.productId);
+            double averageRating = rating != null ? rating.getAverageRating() : 0.0;
+            long reviewCount = rating != null ? rating.getReviewCount() : 0L;
+            double bayesianRating = (PRIOR_RATING * PRIOR_REVIEWS + averageRating * reviewCount)
+                                    / (PRIOR_REVIEWS + reviewCount);
+            double score = candidate.score + RATING_WEIGHT * bayesianRating / 5.0;
+            ranked.put(candidate.productId, new NearbyProduct(null, candidate.distanceKm, averageRating,
+                                                              reviewCount, score));
+        }
+        
+        List<Long> ids = ranked.keySet().stream()
+                .sorted(Comparator.comparingDouble((Long id) -> ranked.get(id).getScore()).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(limit)
+                .collect(Collectors.toList());
+        List<NearbyProduct> results = new ArrayList<>(ids.size());
+        for (Product product : loadInOrder(ids)) {
+            NearbyProduct result = ranked.get(product.getId());
+            result.setProduct(product);
+            results.add(result);
+        }
+        return results;
     }
     
     public List<Product> getAllProductsForAdmin() {
         return productRepository.findAll();
     }
+    
+    public CursorPage<Product> getAllProductsForAdminPage(Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(
+            after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(products, limit, Product::getId);
+    }
+    
+    // Attaches rating totals to a listing with one lookup for the whole list.
+    public List<RatedProduct> withRatings(List<Product> products) {
+        List<Long> ids = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        Map<Long, RatingSummary> ratings = productRatingService.getRatings(ids);
+        List<RatedProduct> rated = new ArrayList<>(products.size());
+        for (Product product : products) {
+            rated.add(new RatedProduct(product, ratings.getOrDefault(product.getId(), RatingSummary.empty())));
+        }
+        return rated;
+    }
+    
+    public CursorPage<RatedProduct> withRatings(CursorPage<Product> page) {
+        return new CursorPage<>(withRatings(page.getItems()), page.getNextCursor());
+    }
+    
+    // Indexes products inserted outside JPA (bulk import) and drops the cached
+    // lists they now belong to, once per category and vendor.
+    public void indexInserted(List<Product> products) {
+        Set<String> categories = new HashSet<>();
+        Set<Long> vendorIds = new HashSet<>();
+        for (Product product : products) {
+            productSearchIndex.update(product);
+            suggestionIndex.updateProduct(product);
+            productRankingIndex.updateProduct(product);
+            categories.add(product.getCategory());
+            vendorIds.add(product.getVendorId());
+        }
+        productCatalogCache.invalidateAll(Collections.emptyList(), categories, vendorIds);
+    }
+    
+    // Pre-loads the per-category lists so the first visitors don't all miss.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpCache() {
+        if (!cacheWarmUp) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<String> categories = productRepository.findActiveCategories();
+        for (String category : categories) {
+            getProductsByCategory(category);
+        }
+        log.info("Warmed product cache with {} categories in {} ms", categories.size(),
+                 System.currentTimeMillis() - start);
+    }
+    
+    // Uncached lookup for write paths, which modify the entity.
+    private Product findProduct(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+    
+    private void reindex(Product product) {
+        productSearchIndex.update(product);
+        suggestionIndex.updateProduct(product);
+        productRankingIndex.updateProduct(product);
+        productCatalogCache.invalidate(product);
+    }
+    
+    private void reindexActivation(List<ProductSearchView> views, boolean active) {
+        List<Long> ids = new ArrayList<>(views.size());
+        Set<String> categories = new HashSet<>();
+        Set<Long> vendorIds = new HashSet<>();
+        for (ProductSearchView view : views) {
+            ids.add(view.getId());
+            suggestionIndex.updateProduct(view);
+            categories.add(view.getCategory());
+            vendorIds.add(view.getVendorId());
+        }
+        productSearchIndex.setActive(ids, active);
+        productRankingIndex.setActive(ids, active);
+        productCatalogCache.invalidateAll(ids, categories, vendorIds);
+    }
+    
+    private List<Product> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> productsById = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = productsById.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+    
+    private static class NearbyCandidate {
+        final Long productId;
+        final double distanceKm;
+        final double score;
+        
+        NearbyCandidate(Long productId, double distanceKm, double score) {
+            this.productId = productId;
+            this.distanceKm = distanceKm;
+            this.score = score;
+        }
+    }
 }
@@ -1,59 +1,174 @@
 package com.bridgethegap.service;
 
+import com.bridgethegap.dto.CursorPage;
+import com.bridgethegap.dto.ReviewKeyView;
+import com.bridgethegap.dto.RatingSummary;
+import com.bridgethegap.dto.ReviewRatingView;
+import com.bridgethegap.dto.ReviewUpsertResult;
 import com.bridgethegap.entity.Review;
+import com.bridgethegap.entity.ReviewIdempotencyKey;
+import com.bridgethegap.repository.ReviewIdempotencyKeyRepository;
 import com.bridgethegap.repository.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Service
 public class ReviewService {
     
+    private static final int MAX_BULK_IDS = 10000;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    
     @Autowired
     private ReviewRepository reviewRepository;
     
+    @Autowired
+    private ReviewIdempotencyKeyRepository reviewIdempotencyKeyRepository;
+    
+    @Autowired
+    private ProductRatingService productRatingService;
+    
+    @Value("${review.idempotency.ttl-hours:24}")
+    private long idempotencyTtlHours;
+    
+    // Review writes and the product's rating totals commit together
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Review addReview(Review review) {
-        Optional<Review> existingReview = reviewRepository.findByUserIdAndProductId(
-            review.getUserId(), review.getProductId());
+        return addReview(review, null);
+    }
+    
+    // One upsert statement: a second submission for the same user and product
+    // updates the review instead of racing the unique_user_product constraint.
+    // Submissions for different users of a product only meet on the product's
+    // totals row, for the length of the delta. With an idempotency key, a
+    // repeated submission returns the first one's review without writing
+    // again. Read committed, so that the duplicate check takes no gap lock,
+    // which would block the same user's first review of a neighbouring product.
+    // An updated review comes back without its createdAt, which the statement
+    // does not return.
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Review addReview(Review review, String idempotencyKey) {
+        checkRating(review.getRating());
+        if (review.getUserId() == null || review.getProductId() == null) {
+            throw new RuntimeException("User ID and product ID are required");
+        }
         
-        if (existingReview.isPresent()) {
-            Review reviewToUpdate = existingReview.get();
-            reviewToUpdate.setRating(review.getRating());
-            reviewToUpdate.setComment(review.getComment());
-            return reviewRepository.save(reviewToUpdate);
+        String key = null;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                throw new RuntimeException("Idempotency key is longer than " + MAX_IDEMPOTENCY_KEY_LENGTH +
+                                           " characters");
+            }
+            key = review.getUserId() + ":" + idempotencyKey;
+            if (reviewIdempotencyKeyRepository.claim(key, LocalDateTime.now()) == 0) {
+                return replay(key);
+            }
         }
         
-        return reviewRepository.save(review);
+        LocalDateTime now = LocalDateTime.now();
+        ReviewUpsertResult result = reviewRepository.upsert(review.getUserId(), review.getProductId(),
+                                                            review.getRating(), review.getComment(), now);
+        if (result.isInserted()) {
+            productRatingService.reviewAdded(review.getProductId(), review.getRating(), now);
+        } else {
+            productRatingService.reviewChanged(review.getProductId(), result.getPreviousRating(),
+                                               review.getRating(), now);
+        }
+        if (key != null) {
+            reviewIdempotencyKeyRepository.setReviewId(key, result.getReviewId());
+        }
+        Review saved = new Review(review.getUserId(), review.getProductId(), review.getRating(),
+                                  review.getComment());
+        saved.setId(result.getReviewId());
+        saved.setCreatedAt(result.isInserted() ? now : null);
+        saved.setUpdatedAt(now);
+        return saved;
     }
     
     public List<Review> getReviewsByProductId(Long productId) {
         return reviewRepository.findReviewsByProductIdOrderByCreatedAtDesc(productId);
     }
     
+    // Newest first; the cursor is the last review's "createdAt_id".
+    public CursorPage<Review> getReviewsByProductIdPage(Long productId, String after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Review> reviews;
+        if (after == null || after.isBlank()) {
+            reviews = reviewRepository.findByProductIdOrderByCreatedAtDescIdDesc(productId, Limit.of(limit));
+        } else {
+            TimelineCursor cursor = TimelineCursor.parse(after);
+            reviews = reviewRepository.findProductTimelineAfter(productId, cursor.createdAt, cursor.id,
+                                                                Limit.of(limit));
+        }
+        return CursorPage.of(reviews, limit, TimelineCursor::of);
+    }
+    
     public List<Review> getReviewsByUserId(Long userId) {
-        return reviewRepository.findByUserId(userId);
+        return reviewRepository.findReviewsByUserIdOrderByCreatedAtDesc(userId);
+    }
+    
+    public CursorPage<Review> getReviewsByUserIdPage(Long userId, String after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Review> reviews;
+        if (after == null || after.isBlank()) {
+            reviews = reviewRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, Limit.of(limit));
+        } else {
+            TimelineCursor cursor = TimelineCursor.parse(after);
+            reviews = reviewRepository.findUserTimelineAfter(userId, cursor.createdAt, cursor.id, Limit.of(limit));
+        }
+        return CursorPage.of(reviews, limit, TimelineCursor::of);
     }
     
+    // Read committed, like addReview: the locking read takes no gap lock
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Review updateReview(Long id, Review reviewDetails) {
-        Review review = getReviewById(id);
+        Review review = getReviewForUpdate(id);
+        int previousRating = review.getRating();
         
         if (reviewDetails.getRating() != null) {
+            checkRating(reviewDetails.getRating());
             review.setRating(reviewDetails.getRating());
         }
         if (reviewDetails.getComment() != null) {
             review.setComment(reviewDetails.getComment());
         }
         
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        productRatingService.reviewChanged(saved.getProductId(), previousRating, saved.getRating(),
+                                           LocalDateTime.now());
+        return saved;
     }
     
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void deleteReview(Long id) {
-        if (!reviewRepository.existsById(id)) {
-            throw new RuntimeException("Review not found");
+        Review review = getReviewForUpdate(id);
+        reviewRepository.delete(review);
+        productRatingService.reviewRemoved(review.getProductId(), review.getRating());
+    }
+    
+    // One DELETE for the whole list; returns how many reviews existed.
+    @Transactional
+    public int deleteReviews(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new RuntimeException("At most " + MAX_BULK_IDS + " ids per request");
         }
-        reviewRepository.deleteById(id);
+        List<ReviewRatingView> ratings = reviewRepository.findRatingsByIdInForUpdate(ids);
+        int deleted = reviewRepository.deleteByIdIn(ids);
+        productRatingService.reviewsRemoved(ratings);
+        return deleted;
     }
     
     public Review getReviewById(Long id) {
@@ -61,16 +176,90 @@ public class ReviewService {
                 .orElseThrow(() -> new RuntimeException("Review not found"));
     }
     
+    // Locks the review the way the upsert does, so a concurrent write of the
+    // same review waits and then sees this one's rating.
+    private Review getReviewForUpdate(Long id) {
+        ReviewKeyView key = reviewRepository.findKeyById(id)
+                .orElseThrow(() -> new RuntimeException("Review not found"));
+        return reviewRepository.findForUpdateByUserIdAndProductId(key.getUserId(), key.getProductId())
+                .filter(review -> review.getId().equals(id))
+                .orElseThrow(() -> new RuntimeException("Review not found"));
+    }
+    
+    // One primary key read of the product's totals
+    public RatingSummary getRatingByProductId(Long productId) {
+        return productRatingService.getRating(productId);
+    }
+    
+    public Map<Long, RatingSummary> getRatingsByProductIds(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        return productRatingService.getRatingsForAll(productIds);
+    }
+    
     public Double getAverageRatingByProductId(Long productId) {
-        Double averageRating = reviewRepository.findAverageRatingByProductId(productId);
-        return averageRating != null ? averageRating : 0.0;
+        return getRatingByProductId(productId).getAverageRating();
     }
     
     public Long getReviewCountByProductId(Long productId) {
-        return reviewRepository.countReviewsByProductId(productId);
+        return getRatingByProductId(productId).getReviewCount();
     }
     
     public List<Review> getAllReviews() {
         return reviewRepository.findAll();
     }
+    
+    public CursorPage<Review> getAllReviewsPage(Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Review> reviews = reviewRepository.findByIdGreaterThanOrderByIdAsc(
+            after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(reviews, limit, Review::getId);
+    }
+    
+    @Scheduled(fixedDelayString = "${review.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeIdempotencyKeys() {
+        reviewIdempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(idempotencyTtlHours));
+    }
+    
+    private Review replay(String key) {
+        ReviewIdempotencyKey claimed = reviewIdempotencyKeyRepository.findById(key)
+                .orElseThrow(() -> new RuntimeException("Idempotency key expired, retry the request"));
+        if (claimed.getReviewId() == null) {
+            throw new RuntimeException("A request with this idempotency key is still in progress");
+        }
+        return getReviewById(claimed.getReviewId());
+    }
+    
+    private static void checkRating(Integer rating) {
+        if (rating == null || rating < 1 || rating > 5) {
+            throw new RuntimeException("Rating must be between 1 and 5");
+        }
+    }
+    
+    // Position in a newest-first timeline. Reviews share created_at values (the
+    // column has second precision), so the id breaks ties.
+    private static class TimelineCursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+        
+        TimelineCursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+        
+        static String of(Review review) {
+            return review.getCreatedAt() + "_" + review.getId();
+        }
+        
+        static TimelineCursor parse(String cursor) {
+            int separator = cursor.lastIndexOf('_');
+            try {
+                return new TimelineCursor(LocalDateTime.parse(cursor.substring(0, separator)),
+                                          Long.valueOf(cursor.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor: " + cursor);
+            }
+        }
+    }
 }
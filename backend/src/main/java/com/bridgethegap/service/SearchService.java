@@ -0,0 +1,24 @@
+package com.bridgethegap.service;
+
+import com.bridgethegap.dto.Suggestion;
+import com.bridgethegap.index.SuggestionIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class SearchService {
+    
+    private static final int MAX_SUGGESTIONS = 50;
+    
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+    
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return suggestionIndex.suggest(prefix, limit);
+    }
+}
@@ -1,21 +1,47 @@
 package com.bridgethegap.service;
 
 import com.bridgethegap.dto.LoginRequest;
+import com.bridgethegap.dto.CursorPage;
 import com.bridgethegap.dto.LocationRequest;
+import com.bridgethegap.dto.NearbyUser;
+import com.bridgethegap.dto.ReviewRatingView;
 import com.bridgethegap.entity.User;
+import com.bridgethegap.repository.ReviewRepository;
 import com.bridgethegap.repository.UserRepository;
+import com.bridgethegap.util.DistanceCalculator;
+import com.bridgethegap.util.LocationUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 public class UserService {
     
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private LocationPingBuffer locationPingBuffer;
+    
+    @Autowired
+    private ReviewRepository reviewRepository;
+    
+    @Autowired
+    private ProductRatingService productRatingService;
 
     public User registerUser(User user) {
         if (userRepository.existsByEmail(user.getEmail())) {
@@ -42,6 +68,9 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
     
+    // Like VendorService.updateVendor, only writes the position when the
+    // request sets one, through LocationPingBuffer so it is ordered with pings.
+    @Transactional
     public User updateUser(Long id, User userDetails) {
         User user = getUserById(id);
         
@@ -63,29 +92,167 @@ public class UserService {
         if (userDetails.getLongitude() != null) {
             user.setLongitude(userDetails.getLongitude());
         }
+        if (userDetails.getLatitude() != null || userDetails.getLongitude() != null) {
+            locationPingBuffer.writeUser(id, user.getLatitude(), user.getLongitude());
+        }
         
         return userRepository.save(user);
     }
     
+    @Transactional
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("User not found");
         }
+        // The user's reviews go with the foreign key cascade
+        List<ReviewRatingView> reviews = reviewRepository.findRatingsByUserIdForUpdate(id);
         userRepository.deleteById(id);
+        locationPingBuffer.takeUser(id);
+        productRatingService.reviewsRemoved(reviews);
     }
     
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
     
+    public CursorPage<User> getAllUsersPage(Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(users, limit, User::getId);
+    }
+    
+    @Transactional
     public User updateUserLocation(Long id, LocationRequest locationRequest) {
         User user = getUserById(id);
+        locationPingBuffer.writeUser(id, locationRequest.getLatitude(), locationRequest.getLongitude());
         user.setLatitude(locationRequest.getLatitude());
         user.setLongitude(locationRequest.getLongitude());
         return userRepository.save(user);
     }
     
+    // Buffered location update; the row is written by the next LocationPingBuffer flush.
+    public void recordLocationPing(Long id, LocationRequest locationRequest) {
+        if (!LocationUtil.isValidCoordinate(locationRequest.getLatitude(), locationRequest.getLongitude())) {
+            throw new RuntimeException("Invalid coordinates");
+        }
+        locationPingBuffer.recordUser(id, locationRequest.getLatitude(), locationRequest.getLongitude());
+    }
+    
+    // Unflushed pings are overlaid on the rows: a user whose ping left the
+    // circle is dropped and one whose ping entered it is added.
     public List<User> getUsersWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm) {
-        return userRepository.findUsersWithinRadius(latitude, longitude, radiusKm);
+        Map<Long, LocationPingBuffer.Ping> pending = locationPingBuffer.pendingUsers();
+        List<User> users = userRepository.findUsersWithinRadius(latitude, longitude, radiusKm);
+        if (pending.isEmpty()) {
+            return users;
+        }
+        
+        DistanceCalculator origin = new DistanceCalculator(latitude.doubleValue(), longitude.doubleValue());
+        NavigableMap<Long, Double> pinged = pingedWithinRadius(pending, origin, radiusKm);
+        List<User> found = new ArrayList<>(users.size());
+        Set<Long> foundIds = new HashSet<>();
+        for (User user : users) {
+            if (!pending.containsKey(user.getId()) || pinged.containsKey(user.getId())) {
+                found.add(user);
+                foundIds.add(user.getId());
+            }
+        }
+        List<Long> missing = new ArrayList<>();
+        for (Long id : pinged.keySet()) {
+            if (!foundIds.contains(id)) {
+                missing.add(id);
+            }
+        }
+        found.addAll(userRepository.findAllById(missing));
+        
+        Map<Long, Double> distances = new HashMap<>();
+        for (User user : found) {
+            LocationPingBuffer.Ping ping = pending.get(user.getId());
+            if (ping != null) {
+                user.setLatitude(ping.getLatitude());
+                user.setLongitude(ping.getLongitude());
+            }
+            distances.put(user.getId(), origin.distanceKm(user.getLatitude().doubleValue(),
+                                                          user.getLongitude().doubleValue()));
+        }
+        found.sort(Comparator.comparingDouble(user -> distances.get(user.getId())));
+        return found;
+    }
+    
+    // Walks every user within the radius in id-ordered chunks of at most
+    // chunkSize and hands each chunk to the consumer, so memory use does not
+    // depend on how many users match.
+    public void streamUsersWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm,
+                                        int chunkSize, Consumer<List<NearbyUser>> consumer) {
+        Map<Long, LocationPingBuffer.Ping> pending = locationPingBuffer.pendingUsers();
+        long afterId = 0;
+        while (true) {
+            List<NearbyUser> chunk = findNearbyUsersAfter(latitude, longitude, radiusKm, afterId, chunkSize, pending);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            consumer.accept(chunk);
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+    
+    public CursorPage<NearbyUser> getUsersWithinRadiusPage(BigDecimal latitude, BigDecimal longitude,
+                                                           double radiusKm, Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<NearbyUser> users = findNearbyUsersAfter(latitude, longitude, radiusKm, after != null ? after : 0L,
+                                                      limit, locationPingBuffer.pendingUsers());
+        return CursorPage.of(users, limit, NearbyUser::getId);
+    }
+    
+    // The next limit users within the radius after afterId, in id order, with
+    // the pending pings overlaid. The pings of each id range the database
+    // returned are merged into it; when that drops users, the following
+    // range is read too, so only the last chunk comes back short.
+    private List<NearbyUser> findNearbyUsersAfter(BigDecimal latitude, BigDecimal longitude, double radiusKm,
+                                                  long afterId, int limit, Map<Long, LocationPingBuffer.Ping> pending) {
+        if (pending.isEmpty()) {
+            return userRepository.findNearbyUsersAfter(latitude, longitude, radiusKm, afterId, limit);
+        }
+        DistanceCalculator origin = new DistanceCalculator(latitude.doubleValue(), longitude.doubleValue());
+        NavigableMap<Long, Double> pinged = pingedWithinRadius(pending, origin, radiusKm);
+        List<NearbyUser> users = new ArrayList<>(limit);
+        long from = afterId;
+        while (users.size() < limit) {
+            List<NearbyUser> rows = userRepository.findNearbyUsersAfter(latitude, longitude, radiusKm, from, limit);
+            long upTo = rows.size() < limit ? Long.MAX_VALUE : rows.get(rows.size() - 1).getId();
+            NavigableMap<Long, NearbyUser> range = new TreeMap<>();
+            for (NearbyUser row : rows) {
+                if (!pending.containsKey(row.getId())) {
+                    range.put(row.getId(), row);
+                }
+            }
+            for (Map.Entry<Long, Double> entry : pinged.subMap(from, false, upTo, true).entrySet()) {
+                range.put(entry.getKey(), new NearbyUser(entry.getKey(), entry.getValue()));
+            }
+            users.addAll(range.values());
+            if (upTo == Long.MAX_VALUE) {
+                break;
+            }
+            from = upTo;
+        }
+        return users.size() > limit ? new ArrayList<>(users.subList(0, limit)) : users;
+    }
+    
+    // Distance of each pending ping inside the circle, by user id
+    private NavigableMap<Long, Double> pingedWithinRadius(Map<Long, LocationPingBuffer.Ping> pending,
+                                                          DistanceCalculator origin, double radiusKm) {
+        NavigableMap<Long, Double> pinged = new TreeMap<>();
+        for (Map.Entry<Long, LocationPingBuffer.Ping> entry : pending.entrySet()) {
+            LocationPingBuffer.Ping ping = entry.getValue();
+            double distance = origin.distanceWithinKm(ping.getLatitude().doubleValue(),
+                                                      ping.getLongitude().doubleValue(), radiusKm);
+            if (distance >= 0) {
+                pinged.put(entry.getKey(), distance);
+            }
+        }
+        return pinged;
     }
 }
@@ -1,21 +1,67 @@
 package com.bridgethegap.service;
 
+import com.bridgethegap.dto.CursorPage;
 import com.bridgethegap.dto.LoginRequest;
 import com.bridgethegap.dto.LocationRequest;
+import com.bridgethegap.dto.RatedVendor;
+import com.bridgethegap.dto.RatingSummary;
 import com.bridgethegap.entity.Vendor;
+import com.bridgethegap.index.NearbyVendorCache;
+import com.bridgethegap.index.ProductCatalogCache;
+import com.bridgethegap.index.ProductRankingIndex;
+import com.bridgethegap.index.ProductSearchIndex;
+import com.bridgethegap.index.SuggestionIndex;
+import com.bridgethegap.index.VendorGeoIndex;
 import com.bridgethegap.repository.VendorRepository;
+import com.bridgethegap.util.GeoGridIndex;
+import com.bridgethegap.util.LocationUtil;
+import com.bridgethegap.util.TransactionHooks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class VendorService {
     
+    private static final int MAX_NEAREST_RESULTS = 100;
+    
+    private static final double MAX_NEAREST_RADIUS_KM = 500.0;
+    
     @Autowired
     private VendorRepository vendorRepository;
+    
+    @Autowired
+    private VendorGeoIndex vendorGeoIndex;
+    
+    @Autowired
+    private NearbyVendorCache nearbyVendorCache;
+    
+    @Autowired
+    private LocationPingBuffer locationPingBuffer;
+    
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+    
+    @Autowired
+    private ProductRankingIndex productRankingIndex;
+    
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+    
+    @Autowired
+    private ProductRatingService productRatingService;
 
     public Vendor registerVendor(Vendor vendor) {
         if (vendorRepository.existsByEmail(vendor.getEmail())) {
@@ -23,7 +69,9 @@ public class VendorService {
         }
 
         vendor.setPassword(vendor.getPassword());
-        return vendorRepository.save(vendor);
+        Vendor savedVendor = vendorRepository.save(vendor);
+        reindexVendor(savedVendor, true);
+        return savedVendor;
     }
 
     public Vendor loginVendor(LoginRequest loginRequest) {
@@ -43,6 +91,14 @@ public class VendorService {
                 .orElseThrow(() -> new RuntimeException("Vendor not found"));
     }
     
+    public RatedVendor getRatedVendorById(Long id) {
+        return new RatedVendor(getVendorById(id), productRatingService.getVendorRating(id));
+    }
+    
+    // The position is only written when the request sets one, through
+    // LocationPingBuffer so it is ordered with the vendor's pings; otherwise
+    // any unflushed ping stays in the buffer.
+    @Transactional
     public Vendor updateVendor(Long id, Vendor vendorDetails) {
         Vendor vendor = getVendorById(id);
         
@@ -76,8 +132,14 @@ public class VendorService {
         if (vendorDetails.getLongitude() != null) {
             vendor.setLongitude(vendorDetails.getLongitude());
         }
+        boolean moved = vendorDetails.getLatitude() != null || vendorDetails.getLongitude() != null;
+        if (moved) {
+            locationPingBuffer.writeVendor(id, vendor.getLatitude(), vendor.getLongitude());
+        }
         
-        return vendorRepository.save(vendor);
+        Vendor savedVendor = vendorRepository.save(vendor);
+        TransactionHooks.afterCommit(() -> reindexVendor(savedVendor, moved));
+        return savedVendor;
     }
     
     public void deleteVendor(Long id) {
@@ -85,29 +147,167 @@ public class VendorService {
             throw new RuntimeException("Vendor not found");
         }
         vendorRepository.deleteById(id);
+        for (Long productId : productSearchIndex.removeByVendor(id)) {
+            suggestionIndex.removeProduct(productId);
+            productRankingIndex.removeProduct(productId);
+        }
+        suggestionIndex.removeVendor(id);
+        productCatalogCache.invalidateVendor(id);
+        locationPingBuffer.takeVendor(id);
+        GeoGridIndex.Point removed = vendorGeoIndex.remove(id);
+        if (removed != null) {
+            nearbyVendorCache.invalidate(removed.getLatitude(), removed.getLongitude(), removed.getPartition());
+        }
     }
     
     public List<Vendor> getAllVendors() {
         return vendorRepository.findAll();
     }
     
+    public CursorPage<Vendor> getAllVendorsPage(Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Vendor> vendors = vendorRepository.findByIdGreaterThanOrderByIdAsc(
+            after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(vendors, limit, Vendor::getId);
+    }
+    
     public List<Vendor> getVendorsByCategory(String category) {
         return vendorRepository.findByCategory(category);
     }
     
+    public CursorPage<Vendor> getVendorsByCategoryPage(String category, Long after, int limit) {
+        CursorPage.checkLimit(limit);
+        List<Vendor> vendors = vendorRepository.findByCategoryAndIdGreaterThanOrderByIdAsc(
+            category, after != null ? after : 0L, Limit.of(limit));
+        return CursorPage.of(vendors, limit, Vendor::getId);
+    }
+    
+    @Transactional
     public Vendor updateVendorLocation(Long id, LocationRequest locationRequest) {
         Vendor vendor = getVendorById(id);
+        locationPingBuffer.writeVendor(id, locationRequest.getLatitude(), locationRequest.getLongitude());
         vendor.setLatitude(locationRequest.getLatitude());
         vendor.setLongitude(locationRequest.getLongitude());
-        return vendorRepository.save(vendor);
+        Vendor savedVendor = vendorRepository.save(vendor);
+        TransactionHooks.afterCommit(() -> reindexVendor(savedVendor, true));
+        return savedVendor;
+    }
+    
+    // Fast path for frequent location updates from moving vendors: the geo index
+    // moves immediately and the database write is coalesced by LocationPingBuffer.
+    // A vendor that is not in the index yet goes through updateVendorLocation.
+    public void recordLocationPing(Long id, LocationRequest locationRequest) {
+        BigDecimal latitude = locationRequest.getLatitude();
+        BigDecimal longitude = locationRequest.getLongitude();
+        if (!LocationUtil.isValidCoordinate(latitude, longitude)) {
+            throw new RuntimeException("Invalid coordinates");
+        }
+        
+        GeoGridIndex.Point previous = vendorGeoIndex.move(id, latitude.doubleValue(), longitude.doubleValue());
+        if (previous == null) {
+            updateVendorLocation(id, locationRequest);
+            return;
+        }
+        locationPingBuffer.recordVendor(id, latitude, longitude);
+        nearbyVendorCache.invalidate(previous.getLatitude(), previous.getLongitude(), previous.getPartition());
+        nearbyVendorCache.invalidate(latitude.doubleValue(), longitude.doubleValue(), previous.getPartition());
     }
     
     public List<Vendor> getVendorsWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm) {
-        return vendorRepository.findVendorsWithinRadius(latitude, longitude, radiusKm);
+        List<Vendor> cached = nearbyVendorCache.lookup(latitude, longitude, radiusKm, null,
+            key -> loadInDistanceOrder(vendorGeoIndex.findWithinRadius(
+                key.getCenterLatitude(), key.getCenterLongitude(), key.getSearchRadiusKm())));
+        if (cached != null) {
+            return cached;
+        }
+        return loadInDistanceOrder(vendorGeoIndex.findWithinRadius(latitude, longitude, radiusKm));
+    }
+    
+    public List<Vendor> getNearestVendors(BigDecimal latitude, BigDecimal longitude, int k, double maxRadiusKm) {
+        if (k < 1 || k > MAX_NEAREST_RESULTS) {
+            throw new RuntimeException("k must be between 1 and " + MAX_NEAREST_RESULTS);
+        }
+        if (!(maxRadiusKm > 0 && maxRadiusKm <= MAX_NEAREST_RADIUS_KM)) {
+            throw new RuntimeException("maxRadiusKm must be greater than 0 and at most " + MAX_NEAREST_RADIUS_KM);
+        }
+        return loadInDistanceOrder(vendorGeoIndex.findNearest(latitude, longitude, k, maxRadiusKm));
     }
     
     public List<Vendor> getVendorsWithinRadiusByCategory(BigDecimal latitude, BigDecimal longitude, 
                                                         double radiusKm, String category) {
-        return vendorRepository.findVendorsWithinRadiusByCategory(latitude, longitude, radiusKm, category);
+        List<Vendor> cached = nearbyVendorCache.lookup(latitude, longitude, radiusKm, category,
+            key -> loadInDistanceOrder(vendorGeoIndex.findWithinRadius(
+                key.getCenterLatitude(), key.getCenterLongitude(), key.getSearchRadiusKm(), category)));
+        if (cached != null) {
+            return cached;
+        }
+        return loadInDistanceOrder(vendorGeoIndex.findWithinRadius(latitude, longitude, radiusKm, category));
+    }
+    
+    // Attaches rating rollups to a (possibly cached) nearby listing with one
+    // lookup for the whole list, so map pins can show stars.
+    public List<RatedVendor> withRatings(List<Vendor> vendors) {
+        List<Long> ids = new ArrayList<>(vendors.size());
+        for (Vendor vendor : vendors) {
+            ids.add(vendor.getId());
+        }
+        Map<Long, RatingSummary> ratings = productRatingService.getVendorRatings(ids);
+        List<RatedVendor> rated = new ArrayList<>(vendors.size());
+        for (Vendor vendor : vendors) {
+            rated.add(new RatedVendor(vendor, ratings.getOrDefault(vendor.getId(), RatingSummary.empty())));
+        }
+        return rated;
+    }
+    
+    // Updates the search indexes and drops cached nearby results around both the
+    // vendor's old and new indexed position. A vendor that did not move keeps its
+    // indexed position, which may be newer than the entity's.
+    private void reindexVendor(Vendor vendor, boolean moved) {
+        suggestionIndex.updateVendor(vendor);
+        GeoGridIndex.Point previous = moved ? null : vendorGeoIndex.recategorize(vendor);
+        if (previous == null) {
+            previous = vendorGeoIndex.update(vendor);
+        }
+        if (previous != null) {
+            nearbyVendorCache.invalidate(previous.getLatitude(), previous.getLongitude(), previous.getPartition());
+        }
+        GeoGridIndex.Point current = vendorGeoIndex.get(vendor.getId());
+        if (current != null) {
+            nearbyVendorCache.invalidate(current.getLatitude(), current.getLongitude(), current.getPartition());
+        }
+    }
+    
+    // Fetches the hit vendors by primary key and returns them nearest first.
+    private List<Vendor> loadInDistanceOrder(List<GeoGridIndex.Hit> hits) {
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = hits.stream().map(GeoGridIndex.Hit::getId).collect(Collectors.toList());
+        Map<Long, Vendor> vendorsById = vendorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Vendor::getId, Function.identity()));
+        List<Vendor> vendors = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Vendor vendor = vendorsById.get(id);
+            if (vendor != null) {
+                withIndexedPosition(vendor);
+                vendors.add(vendor);
+            }
+        }
+        return vendors;
+    }
+    
+    // Pings move the geo index at once but reach the row only on the next
+    // LocationPingBuffer flush, so the index has the current position.
+    private void withIndexedPosition(Vendor vendor) {
+        GeoGridIndex.Point point = vendorGeoIndex.get(vendor.getId());
+        if (point == null) {
+            return;
+        }
+        if (vendor.getLatitude() == null || vendor.getLatitude().doubleValue() != point.getLatitude()) {
+            vendor.setLatitude(BigDecimal.valueOf(point.getLatitude()));
+        }
+        if (vendor.getLongitude() == null || vendor.getLongitude().doubleValue() != point.getLongitude()) {
+            vendor.setLongitude(BigDecimal.valueOf(point.getLongitude()));
+        }
     }
 }
@@ -0,0 +1,103 @@
+package com.bridgethegap.util;
+
+// Distance calculator with a fixed origin. The origin's radians and cos(lat)
+// are computed once; per-point calls only do primitive math and never allocate.
+public class DistanceCalculator {
+    
+    // Below this radius the equirectangular approximation is accurate to well
+    // under the decision margin, so most points skip the haversine trig.
+    public static final double FAST_PATH_MAX_RADIUS_KM = 50.0;
+    
+    private static final double FAST_PATH_MARGIN = 0.01;
+    
+    private final double originLat;
+    private final double originLon;
+    private final double originLatRad;
+    private final double originCos;
+    private final double originSin;
+    
+    public DistanceCalculator(double latitude, double longitude) {
+        this.originLat = latitude;
+        this.originLon = longitude;
+        this.originLatRad = latitude * LocationUtil.DEG_TO_RAD;
+        this.originCos = Math.cos(originLatRad);
+        this.originSin = Math.sin(originLatRad);
+    }
+    
+    public double getLatitude() {
+        return originLat;
+    }
+    
+    public double getLongitude() {
+        return originLon;
+    }
+    
+    // Exact great-circle distance in km.
+    public double distanceKm(double latitude, double longitude) {
+        return LocationUtil.haversine(originLatRad, originCos, latitude * LocationUtil.DEG_TO_RAD,
+                                      (longitude - originLon) * LocationUtil.DEG_TO_RAD);
+    }
+    
+    // Equirectangular approximation, using a first-order cos() of the mean
+    // latitude. Only meaningful for short distances.
+    public double approximateDistanceKm(double latitude, double longitude) {
+        double dLat = (latitude - originLat) * LocationUtil.DEG_TO_RAD;
+        double dLon = (longitude - originLon) * LocationUtil.DEG_TO_RAD;
+        if (dLon > Math.PI) {
+            dLon -= 2 * Math.PI;
+        } else if (dLon < -Math.PI) {
+            dLon += 2 * Math.PI;
+        }
+        double meanCos = originCos - originSin * dLat * 0.5;
+        double x = dLon * meanCos;
+        return LocationUtil.EARTH_RADIUS_KM * Math.sqrt(x * x + dLat * dLat);
+    }
+    
+    public boolean isWithinRadius(double latitude, double longitude, double radiusKm) {
+        if (radiusKm <= FAST_PATH_MAX_RADIUS_KM) {
+            double approx = approximateDistanceKm(latitude, longitude);
+            if (approx < radiusKm * (1 - FAST_PATH_MARGIN)) {
+                return true;
+            }
+            if (approx > radiusKm * (1 + FAST_PATH_MARGIN)) {
+                return false;
+            }
+        }
+        return distanceKm(latitude, longitude) <= radiusKm;
+    }
+    
+    // Distance to a point strictly closer than radiusKm, or -1 for a point
+    // outside it. A point well inside a small radius gets the equirectangular
+    // distance, which is within metres of the exact one there, so accepted
+    // points cost no more trig than rejected ones.
+    public double distanceWithinKm(double latitude, double longitude, double radiusKm) {
+        if (radiusKm <= FAST_PATH_MAX_RADIUS_KM) {
+            double approx = approximateDistanceKm(latitude, longitude);
+            if (approx < radiusKm * (1 - FAST_PATH_MARGIN)) {
+                return approx;
+            }
+            if (approx > radiusKm * (1 + FAST_PATH_MARGIN)) {
+                return -1;
+            }
+        }
+        double distance = distanceKm(latitude, longitude);
+        return distance < radiusKm ? distance : -1;
+    }
+    
+    // Writes the distance from the origin to each (latitudes[i], longitudes[i])
+    // into out[i] for i in [0, length).
+    public void distancesKm(double[] latitudes, double[] longitudes, double[] out, int length) {
+        if (latitudes.length < length || longitudes.length < length || out.length < length) {
+            throw new IllegalArgumentException("Arrays are shorter than length " + length);
+        }
+        double originLonRad = originLon * LocationUtil.DEG_TO_RAD;
+        for (int i = 0; i < length; i++) {
+            out[i] = LocationUtil.haversine(originLatRad, originCos, latitudes[i] * LocationUtil.DEG_TO_RAD,
+                                            longitudes[i] * LocationUtil.DEG_TO_RAD - originLonRad);
+        }
+    }
+    
+    public void distancesKm(double[] latitudes, double[] longitudes, double[] out) {
+        distancesKm(latitudes, longitudes, out, latitudes.length);
+    }
+}
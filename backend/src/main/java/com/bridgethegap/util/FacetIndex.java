@@ -0,0 +1,93 @@
+package com.bridgethegap.util;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// One bitset of document ids per facet value, so the count of every value
+// within any set of matching documents is a bitwise AND and a popcount.
+// Values are keyed by their trimmed lower-case form and counted under the
+// spelling they were most recently set with.
+public class FacetIndex {
+
+    private final Map<String, Facet> values = new HashMap<>();
+    private final Map<Integer, String> keyOf = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Moves the document to the given value; a null value removes it.
+    public void set(int id, String value) {
+        lock.writeLock().lock();
+        try {
+            String key = value != null ? key(value) : null;
+            String previous = key != null ? keyOf.put(id, key) : keyOf.remove(id);
+            if (previous != null && !previous.equals(key)) {
+                Facet facet = values.get(previous);
+                facet.ids.clear(id);
+                if (facet.ids.isEmpty()) {
+                    values.remove(previous);
+                }
+            }
+            if (key != null) {
+                Facet facet = values.computeIfAbsent(key, k -> new Facet());
+                facet.ids.set(id);
+                facet.label = value.trim();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        set(id, null);
+    }
+
+    // Number of documents per value, limited to the filter when one is given.
+    public Map<String, Integer> counts(BitSet filter) {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Facet facet : values.values()) {
+                int count;
+                if (filter == null) {
+                    count = facet.ids.cardinality();
+                } else {
+                    BitSet matching = (BitSet) facet.ids.clone();
+                    matching.and(filter);
+                    count = matching.cardinality();
+                }
+                if (count > 0) {
+                    counts.put(facet.label, count);
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Copy of the ids carrying the value, compared the way values are keyed.
+    public BitSet ids(String value) {
+        if (value == null) {
+            return new BitSet();
+        }
+        lock.readLock().lock();
+        try {
+            Facet facet = values.get(key(value));
+            return facet != null ? (BitSet) facet.ids.clone() : new BitSet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Facet {
+        final BitSet ids = new BitSet();
+        String label;
+    }
+}
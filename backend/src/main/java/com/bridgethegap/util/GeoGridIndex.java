@@ -0,0 +1,418 @@
+package com.bridgethegap.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Fixed-size lat/lon grid. Each point lives in exactly one cell, and a radius
+// query only visits the cells overlapping the query's bounding box. Points can
+// carry a partition key (e.g. a category); each cell keeps one bucket per
+// partition so a partitioned query never touches points of other partitions.
+public class GeoGridIndex {
+
+    private static final double EARTH_RADIUS_KM = LocationUtil.EARTH_RADIUS_KM;
+    private static final double KM_PER_DEGREE_LAT = EARTH_RADIUS_KM * Math.PI / 180.0;
+
+    private final double cellSizeDeg;
+    private final int latCells;
+    private final int lonCells;
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Long, Point> entries = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public GeoGridIndex(double cellSizeDeg) {
+        if (cellSizeDeg <= 0 || cellSizeDeg > 90) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees");
+        }
+        this.cellSizeDeg = cellSizeDeg;
+        this.latCells = (int) Math.ceil(180.0 / cellSizeDeg);
+        this.lonCells = (int) Math.ceil(360.0 / cellSizeDeg);
+    }
+
+    public Point put(long id, double latitude, double longitude) {
+        return put(id, latitude, longitude, null);
+    }
+
+    // Inserts or moves a point. Removal from the old cell/partition and insertion
+    // into the new one happen under the same write lock, so readers never see
+    // the point twice or not at all. Returns the previous point, if any.
+    public Point put(long id, double latitude, double longitude, String partition) {
+        Point entry = new Point(id, latitude, longitude, cellKey(latitude, longitude),
+                                partition == null ? "" : partition);
+        lock.writeLock().lock();
+        try {
+            Point previous = removeEntry(id);
+            cells.computeIfAbsent(entry.cell, k -> new Cell()).add(entry);
+            entries.put(id, entry);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Moves an already indexed point, keeping its partition. Returns the previous
+    // point, or null (and does nothing) if the id is not indexed.
+    public Point moveIfPresent(long id, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            Point previous = entries.get(id);
+            if (previous == null) {
+                return null;
+            }
+            removeEntry(id);
+            Point moved = new Point(id, latitude, longitude, cellKey(latitude, longitude), previous.partition);
+            cells.computeIfAbsent(moved.cell, k -> new Cell()).add(moved);
+            entries.put(id, moved);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Moves an already indexed point to another partition, keeping its position.
+    // Returns the previous point, or null (and does nothing) if the id is not
+    // indexed.
+    public Point repartitionIfPresent(long id, String partition) {
+        lock.writeLock().lock();
+        try {
+            Point previous = entries.get(id);
+            if (previous == null) {
+                return null;
+            }
+            removeEntry(id);
+            Point moved = new Point(id, previous.latitude, previous.longitude, previous.cell,
+                                    partition == null ? "" : partition);
+            cells.computeIfAbsent(moved.cell, k -> new Cell()).add(moved);
+            entries.put(id, moved);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Point remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return entries.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Point get(long id) {
+        lock.readLock().lock();
+        try {
+            return entries.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm) {
+        return withinRadius(latitude, longitude, radiusKm, null);
+    }
+
+    // Returns every point strictly closer than radiusKm, nearest first. A null
+    // partition searches all partitions.
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm, String partition) {
+        List<Hit> hits = new ArrayList<>();
+        if (radiusKm <= 0) {
+            return hits;
+        }
+
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        int minLatCell = latCell(Math.max(-90.0, latitude - dLat));
+        int maxLatCell = latCell(Math.min(90.0, latitude + dLat));
+
+        int minLonCell = 0;
+        int maxLonCell = lonCells - 1;
+        double dLon = lonSpanDeg(latitude, dLat, radiusKm);
+        if (dLon < 180.0) {
+            int fromCell = (int) Math.floor((longitude - dLon + 180.0) / cellSizeDeg);
+            int toCell = (int) Math.floor((longitude + dLon + 180.0) / cellSizeDeg);
+            if (toCell - fromCell + 1 < lonCells) {
+                minLonCell = fromCell;
+                maxLonCell = toCell;
+            }
+        }
+
+        DistanceCalculator calculator = LocationUtil.from(latitude, longitude);
+        lock.readLock().lock();
+        try {
+            for (int latIdx = minLatCell; latIdx <= maxLatCell; latIdx++) {
+                for (int lonIdx = minLonCell; lonIdx <= maxLonCell; lonIdx++) {
+                    Cell cell = cells.get(key(latIdx, Math.floorMod(lonIdx, lonCells)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Map<Long, Point> bucket : cell.buckets(partition)) {
+                        for (Point entry : bucket.values()) {
+                            double distance = calculator.distanceWithinKm(entry.latitude, entry.longitude,
+                                                                          radiusKm);
+                            if (distance >= 0) {
+                                hits.add(new Hit(entry.id, distance));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits;
+    }
+
+    // Returns up to k points closer than maxRadiusKm, nearest first. Cells are
+    // visited in growing square rings around the query cell, and only a bounded
+    // max-heap of the best k candidates is kept.
+    public List<Hit> nearest(double latitude, double longitude, int k, double maxRadiusKm) {
+        return nearest(latitude, longitude, k, maxRadiusKm, null);
+    }
+
+    public List<Hit> nearest(double latitude, double longitude, int k, double maxRadiusKm, String partition) {
+        List<Hit> result = new ArrayList<>();
+        if (k <= 0 || maxRadiusKm <= 0) {
+            return result;
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(k, Comparator.comparingDouble(Hit::getDistanceKm).reversed());
+        Set<Long> visited = new HashSet<>();
+        int centerLat = latCell(latitude);
+        int centerLon = (int) Math.floor((longitude + 180.0) / cellSizeDeg);
+        // No point within the radius lies outside its latitude band or beyond its
+        // longitude span, so those bound the rings worth visiting.
+        double dLat = maxRadiusKm / KM_PER_DEGREE_LAT;
+        int minLatCell = latCell(Math.max(-90.0, latitude - dLat));
+        int maxLatCell = latCell(Math.min(90.0, latitude + dLat));
+        int maxLonRing = (lonCells + 1) / 2;
+        double dLon = lonSpanDeg(latitude, dLat, maxRadiusKm);
+        if (dLon < 180.0) {
+            maxLonRing = Math.min(maxLonRing, (int) Math.ceil(dLon / cellSizeDeg));
+        }
+        int maxRing = Math.max(Math.max(centerLat - minLatCell, maxLatCell - centerLat), maxLonRing);
+        DistanceCalculator calculator = LocationUtil.from(latitude, longitude);
+
+        lock.readLock().lock();
+        try {
+            for (int ring = 0; ring <= maxRing; ring++) {
+                for (int latIdx = centerLat - ring; latIdx <= centerLat + ring; latIdx++) {
+                    if (latIdx < minLatCell || latIdx > maxLatCell) {
+                        continue;
+                    }
+                    boolean edgeRow = latIdx == centerLat - ring || latIdx == centerLat + ring;
+                    int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                    for (int lonIdx = centerLon - ring; lonIdx <= centerLon + ring; lonIdx += step) {
+                        long cellKey = key(latIdx, Math.floorMod(lonIdx, lonCells));
+                        if (!visited.add(cellKey)) {
+                            continue;
+                        }
+                        Cell cell = cells.get(cellKey);
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (Map<Long, Point> bucket : cell.buckets(partition)) {
+                            for (Point entry : bucket.values()) {
+                                double distance = calculator.distanceKm(entry.latitude, entry.longitude);
+                                if (distance >= maxRadiusKm) {
+                                    continue;
+                                }
+                                if (best.size() < k) {
+                                    best.add(new Hit(entry.id, distance));
+                                } else if (distance < best.peek().getDistanceKm()) {
+                                    best.poll();
+                                    best.add(new Hit(entry.id, distance));
+                                }
+                            }
+                        }
+                    }
+                }
+
+                // Anything not yet visited lies outside the block of rings 0..ring.
+                double unvisitedBound = distanceToBlockEdge(latitude, longitude, centerLat, centerLon, ring);
+                if (unvisitedBound >= maxRadiusKm) {
+                    break;
+                }
+                if (best.size() == k && best.peek().getDistanceKm() <= unvisitedBound) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        result.addAll(best);
+        result.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return result;
+    }
+
+    // Widest longitude offset of a spherical cap, or 180 if the cap reaches a
+    // pole and covers every longitude.
+    private static double lonSpanDeg(double latitude, double dLat, double radiusKm) {
+        double angular = radiusKm / EARTH_RADIUS_KM;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        if (Math.abs(latitude) + dLat < 90.0 && Math.sin(angular) < cosLat) {
+            return Math.toDegrees(Math.asin(Math.sin(angular) / cosLat));
+        }
+        return 180.0;
+    }
+
+    // Lower bound on the distance from the query point to any point outside the
+    // square block of cells within 'ring' of the center cell.
+    private double distanceToBlockEdge(double latitude, double longitude, int centerLat, int centerLon, int ring) {
+        double bound = Double.MAX_VALUE;
+        double southEdge = (centerLat - ring) * cellSizeDeg - 90.0;
+        double northEdge = (centerLat + ring + 1) * cellSizeDeg - 90.0;
+        if (southEdge > -90.0) {
+            bound = Math.min(bound, (latitude - southEdge) * KM_PER_DEGREE_LAT);
+        }
+        if (northEdge < 90.0) {
+            bound = Math.min(bound, (northEdge - latitude) * KM_PER_DEGREE_LAT);
+        }
+        if (2 * ring + 1 < lonCells) {
+            double westGap = longitude + 180.0 - (centerLon - ring) * cellSizeDeg;
+            double eastGap = (centerLon + ring + 1) * cellSizeDeg - (longitude + 180.0);
+            double gap = Math.min(westGap, eastGap);
+            if (gap < 90.0) {
+                // Distance from the point to the meridian 'gap' degrees away.
+                double cosLat = Math.cos(Math.toRadians(latitude));
+                bound = Math.min(bound, EARTH_RADIUS_KM * Math.asin(cosLat * Math.sin(Math.toRadians(gap))));
+            }
+        }
+        return bound;
+    }
+
+    private Point removeEntry(long id) {
+        Point existing = entries.remove(id);
+        if (existing == null) {
+            return null;
+        }
+        Cell cell = cells.get(existing.cell);
+        if (cell != null && cell.remove(existing)) {
+            cells.remove(existing.cell);
+        }
+        return existing;
+    }
+
+    private int latCell(double latitude) {
+        return Math.min(latCells - 1, Math.max(0, (int) Math.floor((latitude + 90.0) / cellSizeDeg)));
+    }
+
+    private int lonCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / cellSizeDeg), lonCells);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return key(latCell(latitude), lonCell(longitude));
+    }
+
+    private long key(int latIdx, int lonIdx) {
+        return (long) latIdx * lonCells + lonIdx;
+    }
+
+    public static class Point {
+        final long id;
+        final double latitude;
+        final double longitude;
+        final long cell;
+        final String partition;
+
+        Point(long id, double latitude, double longitude, long cell, String partition) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+            this.partition = partition;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public String getPartition() {
+            return partition;
+        }
+    }
+
+    private static class Cell {
+        final Map<String, Map<Long, Point>> partitions = new HashMap<>(4);
+
+        void add(Point entry) {
+            partitions.computeIfAbsent(entry.partition, k -> new HashMap<>()).put(entry.id, entry);
+        }
+
+        // Returns true once the cell is empty.
+        boolean remove(Point entry) {
+            Map<Long, Point> bucket = partitions.get(entry.partition);
+            if (bucket != null) {
+                bucket.remove(entry.id);
+                if (bucket.isEmpty()) {
+                    partitions.remove(entry.partition);
+                }
+            }
+            return partitions.isEmpty();
+        }
+
+        Collection<Map<Long, Point>> buckets(String partition) {
+            if (partition == null) {
+                return partitions.values();
+            }
+            Map<Long, Point> bucket = partitions.get(partition);
+            return bucket == null ? Collections.emptyList() : Collections.singletonList(bucket);
+        }
+    }
+
+    public static class Hit {
+        private final long id;
+        private final double distanceKm;
+
+        public Hit(long id, double distanceKm) {
+            this.id = id;
+            this.distanceKm = distanceKm;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+}
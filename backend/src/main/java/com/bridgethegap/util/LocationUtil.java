@@ -4,7 +4,9 @@ import java.math.BigDecimal;
 
 public class LocationUtil {
     
-    private static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    
+    static final double DEG_TO_RAD = Math.PI / 180.0;
     
    
     public static double calculateDistance(BigDecimal lat1, BigDecimal lon1, 
@@ -13,21 +15,14 @@ public class LocationUtil {
             return Double.MAX_VALUE; // Return max value if any coordinate is null
         }
         
-        double lat1Rad = Math.toRadians(lat1.doubleValue());
-        double lon1Rad = Math.toRadians(lon1.doubleValue());
-        double lat2Rad = Math.toRadians(lat2.doubleValue());
-        double lon2Rad = Math.toRadians(lon2.doubleValue());
-        
-        double dLat = lat2Rad - lat1Rad;
-        double dLon = lon2Rad - lon1Rad;
-        
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                   Math.cos(lat1Rad) * Math.cos(lat2Rad) *
-                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return EARTH_RADIUS_KM * c;
+        return calculateDistance(lat1.doubleValue(), lon1.doubleValue(),
+                                 lat2.doubleValue(), lon2.doubleValue());
+    }
+    
+    public static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        double lat1Rad = lat1 * DEG_TO_RAD;
+        double lat2Rad = lat2 * DEG_TO_RAD;
+        return haversine(lat1Rad, Math.cos(lat1Rad), lat2Rad, (lon2 - lon1) * DEG_TO_RAD);
     }
     
    
@@ -37,4 +32,28 @@ public class LocationUtil {
         double distance = calculateDistance(lat1, lon1, lat2, lon2);
         return distance <= radiusKm;
     }
+    
+    public static boolean isWithinRadius(double lat1, double lon1, double lat2, double lon2, double radiusKm) {
+        return calculateDistance(lat1, lon1, lat2, lon2) <= radiusKm;
+    }
+    
+    public static boolean isValidCoordinate(BigDecimal latitude, BigDecimal longitude) {
+        return latitude != null && longitude != null
+            && latitude.abs().compareTo(BigDecimal.valueOf(90)) <= 0
+            && longitude.abs().compareTo(BigDecimal.valueOf(180)) <= 0;
+    }
+    
+    // Reusable calculator for many distance checks against the same origin.
+    public static DistanceCalculator from(double latitude, double longitude) {
+        return new DistanceCalculator(latitude, longitude);
+    }
+    
+    // Haversine with asin instead of atan2; lat1Cos is passed in so callers with a
+    // fixed origin can cache it.
+    static double haversine(double lat1Rad, double lat1Cos, double lat2Rad, double dLonRad) {
+        double sinDLat = Math.sin((lat2Rad - lat1Rad) * 0.5);
+        double sinDLon = Math.sin(dLonRad * 0.5);
+        double a = sinDLat * sinDLat + lat1Cos * Math.cos(lat2Rad) * sinDLon * sinDLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+    }
 }
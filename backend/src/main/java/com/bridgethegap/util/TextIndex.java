@@ -0,0 +1,389 @@
+package com.bridgethegap.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+// Inverted index from normalized tokens to documents. Every query token must
+// match a document token exactly or as a prefix; a match scores the summed field
+// weights of that token times its inverse document frequency.
+//
+// Postings are bucketed by weight, so a search walks the query tokens from their
+// heaviest documents down and stops once no unseen document can beat the current
+// top results. Documents with equal scores come back in ascending id order.
+public class TextIndex {
+
+    // Prefix matches beyond this many distinct terms are ignored
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private final TreeMap<String, Posting> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Indexes (or re-indexes) a document; fields[i] is scored with weights[i].
+    public void put(long id, String[] fields, float[] weights) {
+        Map<String, Float> termWeights = new LinkedHashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            for (String token : tokenize(fields[i])) {
+                termWeights.merge(token, weights[i], Float::sum);
+            }
+        }
+        Document document = new Document(termWeights);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (document.terms.length == 0) {
+                return;
+            }
+            for (int i = 0; i < document.terms.length; i++) {
+                postings.computeIfAbsent(document.terms[i], term -> new Posting()).add(id, document.weights[i]);
+            }
+            documents.put(id, document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns up to limit accepted documents matching every query token, best first.
+    public List<Hit> search(String query, int limit, LongPredicate filter) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<TokenMatch> matches = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                TokenMatch match = expand(token);
+                if (match.frequency == 0) {
+                    return new ArrayList<>();
+                }
+                matches.add(match);
+            }
+
+            // Threshold algorithm: consume buckets from whichever token currently
+            // offers the heaviest weight. An unseen document can score at most the
+            // sum of every token's current bucket weight.
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+            Set<Long> seen = new HashSet<>();
+            while (true) {
+                TokenMatch next = null;
+                float threshold = 0;
+                boolean exhausted = false;
+                for (TokenMatch match : matches) {
+                    // Once a token is exhausted every full match has been seen
+                    exhausted |= match.cursor >= match.buckets.size();
+                    float bound = match.currentBound();
+                    threshold += bound;
+                    if (next == null || bound > next.currentBound()) {
+                        next = match;
+                    }
+                }
+                if (exhausted) {
+                    break;
+                }
+                Bucket bucket = next.buckets.get(next.cursor++);
+                for (Long id : bucket.ids) {
+                    // An unseen document can still tie the worst kept hit and win on id
+                    if (best.size() >= limit && threshold < best.peek().score) {
+                        break;
+                    }
+                    if (!seen.add(id)) {
+                        continue;
+                    }
+                    Hit hit = new Hit(id, score(documents.get(id), matches));
+                    if (hit.score <= 0 || (best.size() >= limit && Hit.WORST_FIRST.compare(hit, best.peek()) <= 0)
+                            || !filter.test(id)) {
+                        continue;
+                    }
+                    best.add(hit);
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+                if (best.size() >= limit && threshold < best.peek().score) {
+                    break;
+                }
+            }
+
+            Hit[] ranked = best.toArray(new Hit[0]);
+            Arrays.sort(ranked, Hit.WORST_FIRST.reversed());
+            return new ArrayList<>(Arrays.asList(ranked));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every document matching all query tokens, as a bitset of ids.
+    public BitSet matching(String query) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        BitSet result = null;
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                BitSet tokenIds = new BitSet();
+                for (Bucket bucket : expand(token).buckets) {
+                    for (Long id : bucket.ids) {
+                        if (id <= Integer.MAX_VALUE) {
+                            tokenIds.set(id.intValue());
+                        }
+                    }
+                }
+                if (result == null) {
+                    result = tokenIds;
+                } else {
+                    result.and(tokenIds);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    // Scores the given documents against the query; documents that do not match
+    // every query token are left out.
+    public Map<Long, Float> score(String query, Collection<Long> ids) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        Map<Long, Float> scores = new HashMap<>();
+        if (tokens.isEmpty()) {
+            return scores;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<TokenMatch> matches = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                TokenMatch match = expand(token);
+                if (match.frequency == 0) {
+                    return scores;
+                }
+                matches.add(match);
+            }
+            for (Long id : ids) {
+                Document document = documents.get(id);
+                float score = document != null ? score(document, matches) : 0;
+                if (score > 0) {
+                    scores.put(id, score);
+                }
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lower-cases and splits on anything that is not a letter or digit.
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Sum of the best match of each token in the document, or 0 if one is missing
+    private static float score(Document document, List<TokenMatch> matches) {
+        float total = 0;
+        for (TokenMatch match : matches) {
+            float best = 0;
+            for (int i = 0; i < document.terms.length; i++) {
+                String term = document.terms[i];
+                if (term.equals(match.token)) {
+                    best = Math.max(best, document.weights[i]);
+                } else if (term.startsWith(match.token) && match.expansions.contains(term)) {
+                    best = Math.max(best, document.weights[i] * PREFIX_MATCH_FACTOR);
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best * match.idf;
+        }
+        return total;
+    }
+
+    private TokenMatch expand(String token) {
+        TokenMatch match = new TokenMatch(token);
+        Posting exact = postings.get(token);
+        if (exact != null) {
+            match.add(token, exact, 1.0f);
+        }
+        for (Map.Entry<String, Posting> entry : postings.tailMap(token, false).entrySet()) {
+            if (!entry.getKey().startsWith(token) || match.expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            match.add(entry.getKey(), entry.getValue(), PREFIX_MATCH_FACTOR);
+        }
+        int total = documents.size();
+        int frequency = Math.min(match.frequency, total);
+        match.seal((float) Math.log(1.0 + (total - frequency + 0.5) / (frequency + 0.5)));
+        return match;
+    }
+
+    private boolean removeLocked(long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return false;
+        }
+        for (int i = 0; i < document.terms.length; i++) {
+            Posting posting = postings.get(document.terms[i]);
+            if (posting != null && posting.remove(id, document.weights[i])) {
+                postings.remove(document.terms[i]);
+            }
+        }
+        return true;
+    }
+
+    private static class Document {
+        private final String[] terms;
+        private final float[] weights;
+
+        Document(Map<String, Float> termWeights) {
+            terms = new String[termWeights.size()];
+            weights = new float[termWeights.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+                terms[i] = entry.getKey();
+                weights[i++] = entry.getValue();
+            }
+        }
+    }
+
+    // Documents containing one term, grouped by the term's weight in them
+    private static class Posting {
+        private final TreeMap<Float, Set<Long>> buckets = new TreeMap<>();
+        private int size;
+
+        void add(long id, float weight) {
+            if (buckets.computeIfAbsent(weight, w -> new HashSet<>()).add(id)) {
+                size++;
+            }
+        }
+
+        // Returns true once the posting is empty
+        boolean remove(long id, float weight) {
+            Set<Long> ids = buckets.get(weight);
+            if (ids != null && ids.remove(id)) {
+                size--;
+                if (ids.isEmpty()) {
+                    buckets.remove(weight);
+                }
+            }
+            return size == 0;
+        }
+    }
+
+    private static class Bucket {
+        private final float weight;
+        private final Set<Long> ids;
+
+        Bucket(float weight, Set<Long> ids) {
+            this.weight = weight;
+            this.ids = ids;
+        }
+    }
+
+    private static class TokenMatch {
+        private final String token;
+        private final Set<String> expansions = new HashSet<>();
+        private final List<Bucket> buckets = new ArrayList<>();
+        private int frequency;
+        private float idf;
+        private int cursor;
+
+        TokenMatch(String token) {
+            this.token = token;
+        }
+
+        void add(String term, Posting posting, float factor) {
+            expansions.add(term);
+            frequency += posting.size;
+            for (Map.Entry<Float, Set<Long>> bucket : posting.buckets.entrySet()) {
+                buckets.add(new Bucket(bucket.getKey() * factor, bucket.getValue()));
+            }
+        }
+
+        // Sorts the buckets of all expansions, heaviest first
+        void seal(float idf) {
+            this.idf = idf;
+            buckets.sort(Comparator.comparingDouble((Bucket bucket) -> bucket.weight).reversed());
+        }
+
+        float currentBound() {
+            return cursor < buckets.size() ? buckets.get(cursor).weight * idf : 0;
+        }
+    }
+
+    public static class Hit {
+        // Lower score first; among equal scores the higher id is the worse hit
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::getScore)
+                .thenComparing(Comparator.comparingLong(Hit::getId).reversed());
+
+        private final long id;
+        private final float score;
+
+        Hit(long id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+}
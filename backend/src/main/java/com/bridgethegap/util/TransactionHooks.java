@@ -0,0 +1,25 @@
+package com.bridgethegap.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// In-memory indexes and caches must only follow the database once a write has
+// committed: updated earlier, a rollback leaves them describing rows that never
+// existed, and a concurrent reader can cache the pre-commit row again.
+public class TransactionHooks {
+
+    // Runs the action after the current transaction commits (not at all if it
+    // rolls back), or right away when no transaction is active.
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
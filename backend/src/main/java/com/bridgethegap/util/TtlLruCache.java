@@ -0,0 +1,176 @@
+package com.bridgethegap.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+// Size-bounded LRU cache with a per-entry time to live and hit/miss/eviction
+// counters. Loads run outside the lock; a load that overlaps an invalidation of
+// its key (or a bulk invalidation) is returned to its caller but not cached, so
+// invalidated data can't come back.
+public class TtlLruCache<K, V> {
+    
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Timestamped<V>> entries;
+    private final Map<K, Object> inFlight = new HashMap<>();
+    private final BiConsumer<K, V> removalListener;
+    
+    private long generation;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    
+    public TtlLruCache(String name, int maxEntries, Duration ttl) {
+        this(name, maxEntries, ttl, null);
+    }
+    
+    // The removal listener runs under the cache lock for every entry that is
+    // evicted, expires or is invalidated, and must be quick.
+    public TtlLruCache(String name, int maxEntries, Duration ttl, BiConsumer<K, V> removalListener) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.removalListener = removalListener;
+    }
+    
+    public V get(K key) {
+        synchronized (this) {
+            Timestamped<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.createdAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+                notifyRemoval(key, entry.value);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+    
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Object token = new Object();
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+            inFlight.put(key, token);
+        }
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                inFlight.remove(key, token);
+            }
+            throw e;
+        }
+        loadNanos.addAndGet(System.nanoTime() - start);
+        loads.incrementAndGet();
+        synchronized (this) {
+            boolean current = inFlight.remove(key, token) && generation == startGeneration;
+            if (current && value != null) {
+                putLocked(key, value);
+            }
+        }
+        return value;
+    }
+    
+    public synchronized void put(K key, V value) {
+        putLocked(key, value);
+    }
+    
+    public synchronized void invalidate(K key) {
+        inFlight.remove(key);
+        Timestamped<V> removed = entries.remove(key);
+        if (removed != null) {
+            invalidations.incrementAndGet();
+            notifyRemoval(key, removed.value);
+        }
+    }
+    
+    // Drops every entry matching the predicate; returns how many were dropped.
+    public synchronized int invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        generation++;
+        int removed = 0;
+        Iterator<Map.Entry<K, Timestamped<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Timestamped<V>> entry = it.next();
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                it.remove();
+                removed++;
+                notifyRemoval(entry.getKey(), entry.getValue().value);
+            }
+        }
+        invalidations.addAndGet(removed);
+        return removed;
+    }
+    
+    public synchronized void clear() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        if (removalListener != null) {
+            entries.forEach((key, entry) -> removalListener.accept(key, entry.value));
+        }
+        entries.clear();
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public CacheStats stats() {
+        return new CacheStats(name, size(), maxEntries, hits.get(), misses.get(), evictions.get(),
+                              expirations.get(), invalidations.get(), loads.get(), loadNanos.get());
+    }
+    
+    private void putLocked(K key, V value) {
+        entries.put(key, new Timestamped<>(value, System.nanoTime()));
+        while (entries.size() > maxEntries) {
+            Iterator<Map.Entry<K, Timestamped<V>>> eldest = entries.entrySet().iterator();
+            Map.Entry<K, Timestamped<V>> evicted = eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+            notifyRemoval(evicted.getKey(), evicted.getValue().value);
+        }
+    }
+    
+    private void notifyRemoval(K key, V value) {
+        if (removalListener != null) {
+            removalListener.accept(key, value);
+        }
+    }
+    
+    private static class Timestamped<V> {
+        final V value;
+        final long createdAt;
+        
+        Timestamped(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.bridgethegap.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// H2 stand-ins for the MySQL 8 spatial functions the spatial radius queries
+// call. Geometries are kept as their WKT text, so 'location' is a VARCHAR
+// holding "POINT(<lng> <lat>)", which is what database/spatial_locations.sql
+// stores as POINT SRID 4326 with axis-order=long-lat.
+public class MySqlSpatialStandIn {
+
+    private static final String CLASS = MySqlSpatialStandIn.class.getName();
+
+    // Registers the functions and adds the location column to users
+    public static void install(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS ST_PointFromText FOR '" + CLASS + ".fromText'");
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS ST_GeomFromText FOR '" + CLASS + ".fromText'");
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS MBRContains FOR '" + CLASS + ".mbrContains'");
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS ST_Distance_Sphere FOR '" + CLASS + ".distanceSphere'");
+        jdbcTemplate.execute("ALTER TABLE users ADD COLUMN IF NOT EXISTS location VARCHAR(100) " +
+                             "DEFAULT 'POINT(0 0)' NOT NULL");
+    }
+
+    // What the location triggers of database/spatial_locations.sql maintain
+    public static void syncLocations(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("UPDATE users SET location = CASE WHEN latitude IS NOT NULL AND longitude IS NOT NULL " +
+                            "THEN CONCAT('POINT(', longitude, ' ', latitude, ')') ELSE 'POINT(0 0)' END");
+    }
+
+    public static String fromText(String wkt, int srid, String options) {
+        if (srid != 4326 || !"axis-order=long-lat".equals(options)) {
+            throw new IllegalArgumentException("Expected SRID 4326 in long-lat order, got " + srid + " " + options);
+        }
+        return wkt;
+    }
+
+    // Whether the rectangle of the envelope contains the point
+    public static boolean mbrContains(String envelope, String point) {
+        double[] p = coordinates(point);
+        double[] e = coordinates(envelope);
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < e.length; i += 2) {
+            minX = Math.min(minX, e[i]);
+            maxX = Math.max(maxX, e[i]);
+            minY = Math.min(minY, e[i + 1]);
+            maxY = Math.max(maxY, e[i + 1]);
+        }
+        return p[0] >= minX && p[0] <= maxX && p[1] >= minY && p[1] <= maxY;
+    }
+
+    // Great-circle distance in the unit of the radius
+    public static double distanceSphere(String from, String to, double radius) {
+        double[] a = coordinates(from);
+        double[] b = coordinates(to);
+        double dLat = Math.toRadians(b[1] - a[1]);
+        double dLng = Math.toRadians(b[0] - a[0]);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(a[1])) * Math.cos(Math.toRadians(b[1])) *
+                   Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * radius * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    // All numbers of a WKT text in order, e.g. [x, y] of a POINT
+    private static double[] coordinates(String wkt) {
+        String[] numbers = wkt.replaceAll("^[A-Z]+\\s*\\(+|\\)+$", "").trim().split("[\\s,]+");
+        double[] values = new double[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            values[i] = Double.parseDouble(numbers[i]);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,160 @@
+package com.bridgethegap.repository;
+
+import com.bridgethegap.dto.NearbyUser;
+import com.bridgethegap.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Radius queries with geo.persistence.mode=spatial, run on H2 in MySQL mode
+// with MySqlSpatialStandIn in place of the MySQL spatial functions. Every
+// query is checked against the decimal-mode query and a brute-force distance.
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:spatial;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "geo.persistence.mode=spatial"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositorySpatialTest {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Clusters of users: mid-latitude, both sides of the antimeridian, near
+    // the north pole, and around (0, 0) where users without coordinates sit
+    private static final double[][] CENTERS = {{48.85, 2.35}, {-17.7, 179.95}, {-17.7, -179.95}, {89.6, 40.0},
+                                               {0.0, 0.0}};
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        MySqlSpatialStandIn.install(jdbcTemplate);
+        Random random = new Random(42);
+        for (int i = 0; i < 400; i++) {
+            User user = new User("User " + i, "user" + i + "@test.local", "test");
+            if (i % 20 != 0) {
+                double[] center = CENTERS[i % CENTERS.length];
+                double latitude = Math.max(-90.0, Math.min(90.0, center[0] + random.nextGaussian() * 0.5));
+                double longitude = center[1] + random.nextGaussian() * 0.5;
+                longitude = longitude > 180.0 ? longitude - 360.0 : longitude < -180.0 ? longitude + 360.0 : longitude;
+                user.setLatitude(BigDecimal.valueOf(latitude).setScale(6, RoundingMode.HALF_UP));
+                user.setLongitude(BigDecimal.valueOf(longitude).setScale(6, RoundingMode.HALF_UP));
+            }
+            users.add(user);
+        }
+        userRepository.saveAllAndFlush(users);
+        MySqlSpatialStandIn.syncLocations(jdbcTemplate);
+    }
+
+    @Test
+    void findUsersWithinRadiusMatchesDecimalModeAndBruteForce() {
+        for (double[] center : CENTERS) {
+            for (double radiusKm : new double[] {5.0, 30.0, 80.0}) {
+                Set<Long> expected = expectedIds(center, radiusKm);
+                Set<Long> spatial = ids(userRepository.findUsersWithinRadius(
+                    BigDecimal.valueOf(center[0]), BigDecimal.valueOf(center[1]), radiusKm));
+                String query = center[0] + "," + center[1] + " within " + radiusKm + " km";
+                assertEquals(expected, spatial, "spatial " + query);
+                assertEquals(expected, ids(decimalQuery(center, radiusKm)), "decimal " + query);
+            }
+        }
+    }
+
+    @Test
+    void antimeridianQueriesReachTheOtherSide() {
+        double[] center = {-17.7, 179.95};
+        List<User> found = userRepository.findUsersWithinRadius(
+            BigDecimal.valueOf(center[0]), BigDecimal.valueOf(center[1]), 80.0);
+        assertTrue(found.stream().anyMatch(user -> user.getLongitude().doubleValue() < 0));
+        assertTrue(found.stream().anyMatch(user -> user.getLongitude().doubleValue() > 0));
+    }
+
+    @Test
+    void usersWithoutCoordinatesAreNeverFound() {
+        List<User> found = userRepository.findUsersWithinRadius(BigDecimal.ZERO, BigDecimal.ZERO, 80.0);
+        assertFalse(found.isEmpty());
+        assertTrue(found.stream().allMatch(user -> user.getLatitude() != null));
+    }
+
+    @Test
+    void findNearbyUsersAfterPagesThroughTheCircleInIdOrder() {
+        double[] center = CENTERS[0];
+        double radiusKm = 80.0;
+        Set<Long> seen = new TreeSet<>();
+        long afterId = 0;
+        List<NearbyUser> chunk;
+        do {
+            chunk = userRepository.findNearbyUsersAfter(BigDecimal.valueOf(center[0]),
+                                                        BigDecimal.valueOf(center[1]), radiusKm, afterId, 7);
+            for (NearbyUser nearby : chunk) {
+                assertTrue(nearby.getId() > afterId);
+                afterId = nearby.getId();
+                seen.add(nearby.getId());
+                User user = users.stream().filter(u -> u.getId().equals(nearby.getId())).findFirst().orElseThrow();
+                assertEquals(distanceKm(center, user), nearby.getDistanceKm(), 1e-6);
+            }
+        } while (chunk.size() == 7);
+        assertEquals(expectedIds(center, radiusKm), seen);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<User> decimalQuery(double[] center, double radiusKm) {
+        return GeoRadiusQueryBuilder.forTable("users")
+                .build(entityManager, User.class, center[0], center[1], radiusKm)
+                .getResultList();
+    }
+
+    private Set<Long> expectedIds(double[] center, double radiusKm) {
+        Set<Long> ids = new TreeSet<>();
+        for (User user : users) {
+            if (user.getLatitude() != null && distanceKm(center, user) < radiusKm) {
+                ids.add(user.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static Set<Long> ids(List<User> found) {
+        Set<Long> ids = new TreeSet<>();
+        for (User user : found) {
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+
+    private static double distanceKm(double[] center, User user) {
+        return MySqlSpatialStandIn.distanceSphere("POINT(" + center[1] + " " + center[0] + ")",
+                                                  "POINT(" + user.getLongitude() + " " + user.getLatitude() + ")",
+                                                  EARTH_RADIUS_KM);
+    }
+}
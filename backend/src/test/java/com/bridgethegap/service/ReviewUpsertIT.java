@@ -0,0 +1,274 @@
+package com.bridgethegap.service;
+
+import com.bridgethegap.BridgeTheGapApplication;
+import com.bridgethegap.entity.Review;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Concurrent review writes against a real MySQL-compatible server: the upsert,
+// its locks and the idempotency keys are InnoDB behaviour that H2 does not
+// reproduce. Runs in mvn verify, which starts an embedded MariaDB for it, or
+// against any MySQL 8 server given as -Dit.mysql.embedded.skip=true
+// -Dit.mysql.url=jdbc:mysql://host:3306/ (with -Dit.mysql.username and
+// -Dit.mysql.password). The test drops and recreates the bridgethegap_it
+// database from database/schema.sql.
+class ReviewUpsertIT {
+
+    private static final String DATABASE = "bridgethegap_it";
+    private static final int THREADS = 16;
+    private static final int USERS = 8;
+    private static final int SUBMISSIONS = 100;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private static ConfigurableApplicationContext context;
+    private static ReviewService reviewService;
+    private static JdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    private long vendorId;
+    private long productId;
+    private long[] userIds;
+
+    @BeforeAll
+    static void startApplication() throws IOException, SQLException {
+        String serverUrl = System.getProperty("it.mysql.url", "");
+        assumeTrue(!serverUrl.isEmpty(), "Set it.mysql.url (or run mvn verify)");
+        String username = System.getProperty("it.mysql.username", "root");
+        String password = System.getProperty("it.mysql.password", "");
+        createSchema(serverUrl, username, password);
+
+        context = new SpringApplicationBuilder(BridgeTheGapApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + serverUrl + DATABASE + "?useSSL=false&serverTimezone=UTC" +
+                     "&allowPublicKeyRetrieval=true",
+                     "--spring.datasource.username=" + username,
+                     "--spring.datasource.password=" + password,
+                     "--spring.jpa.hibernate.ddl-auto=none",
+                     "--spring.jpa.show-sql=false",
+                     "--spring.datasource.hikari.maximum-pool-size=" + (THREADS + 2));
+        reviewService = context.getBean(ReviewService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    // Threads work in pairs that send each submission twice at the same moment
+    // with the same idempotency key, like a double-clicked submit button.
+    @Test
+    void concurrentSubmissionsKeepOneReviewPerUserAndExactTotals() throws InterruptedException {
+        seed();
+        String run = "pairs-" + productId;
+        Set<Long> reviewers = ConcurrentHashMap.newKeySet();
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        hammer(thread -> {
+            int pair = thread / 2;
+            for (int i = 0; i < SUBMISSIONS; i++) {
+                Random random = new Random(pair * 1_000_003L + i);
+                long userId = userIds[random.nextInt(USERS)];
+                String key = run + "-" + pair + "-" + i;
+                retry(() -> reviewService.addReview(new Review(userId, productId, 1 + random.nextInt(5), key), key));
+                reviewers.add(userId);
+                keys.add(key);
+            }
+        });
+
+        assertNull(failure.get());
+        assertEquals(reviewers.size(), queryLong("SELECT COUNT(*) FROM reviews WHERE product_id = ?", productId));
+        assertEquals(keys.size(), queryLong("SELECT COUNT(*) FROM review_idempotency_keys WHERE idempotency_key " +
+                                            "LIKE ? AND review_id IS NOT NULL", "%:" + run + "-%"));
+        assertTotalsMatchReviews();
+    }
+
+    // Half the threads resubmit reviews through the upsert while the other half
+    // update and delete the same reviews by id.
+    @Test
+    void updatesAndDeletesRacingTheUpsertKeepExactTotals() throws InterruptedException {
+        seed();
+        hammer(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < SUBMISSIONS; i++) {
+                long userId = userIds[random.nextInt(USERS)];
+                int rating = 1 + random.nextInt(5);
+                if (thread % 2 == 0) {
+                    retry(() -> reviewService.addReview(new Review(userId, productId, rating, "upsert")));
+                    continue;
+                }
+                List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM reviews WHERE user_id = ? AND product_id = ?", Long.class, userId, productId);
+                if (ids.isEmpty()) {
+                    continue;
+                }
+                Review details = new Review();
+                details.setRating(rating);
+                boolean delete = random.nextInt(4) == 0;
+                retry(() -> {
+                    try {
+                        if (delete) {
+                            reviewService.deleteReview(ids.get(0));
+                        } else {
+                            reviewService.updateReview(ids.get(0), details);
+                        }
+                    } catch (RuntimeException e) {
+                        // Deleted by another thread since it was looked up
+                        if (!"Review not found".equals(e.getMessage())) {
+                            throw e;
+                        }
+                    }
+                });
+            }
+        });
+
+        assertNull(failure.get());
+        assertTotalsMatchReviews();
+    }
+
+    private void hammer(ThreadBody body) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        for (int thread = 0; thread < THREADS; thread++) {
+            int id = thread;
+            executor.execute(() -> {
+                try {
+                    startGate.await();
+                    body.run(id);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        startGate.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        System.out.println(THREADS + " threads x " + SUBMISSIONS + " writes, " + retries.get() + " deadlock retries");
+    }
+
+    // Deadlock victims are rolled back as a whole, so a client simply resends
+    private void retry(Runnable write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write.run();
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+            }
+        }
+    }
+
+    private void assertTotalsMatchReviews() {
+        Map<String, Object> expected = jdbcTemplate.queryForMap(
+            "SELECT COALESCE(SUM(rating), 0) AS rating_sum, COUNT(*) AS review_count, " +
+            "SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END) AS rating_1, " +
+            "SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END) AS rating_2, " +
+            "SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END) AS rating_3, " +
+            "SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END) AS rating_4, " +
+            "SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END) AS rating_5 " +
+            "FROM reviews WHERE product_id = ?", productId);
+        Map<String, Object> product = jdbcTemplate.queryForMap(
+            "SELECT rating_sum, review_count, rating_1, rating_2, rating_3, rating_4, rating_5 " +
+            "FROM product_ratings WHERE product_id = ?", productId);
+        Map<String, Object> vendor = jdbcTemplate.queryForMap(
+            "SELECT rating_sum, review_count, rating_1, rating_2, rating_3, rating_4, rating_5 " +
+            "FROM vendor_ratings WHERE vendor_id = ?", vendorId);
+        for (Map.Entry<String, Object> column : expected.entrySet()) {
+            long want = column.getValue() != null ? ((Number) column.getValue()).longValue() : 0L;
+            String name = column.getKey();
+            assertEquals(want, ((Number) product.get(name)).longValue(), "product_ratings." + name);
+            assertEquals(want, ((Number) vendor.get(name)).longValue(), "vendor_ratings." + name);
+        }
+    }
+
+    private long queryLong(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+
+    // A vendor with one product and a few users of its own per test
+    private void seed() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        String run = Long.toString(System.nanoTime(), 36);
+        String vendorEmail = "it-" + run + "@test.local";
+        jdbcTemplate.update("INSERT INTO vendors (name, category, email, password, created_at, updated_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)", "IT " + run, "grocery", vendorEmail, "test", now, now);
+        vendorId = queryLong("SELECT id FROM vendors WHERE email = ?", vendorEmail);
+        jdbcTemplate.update("INSERT INTO products (vendor_id, name, price, category, is_active, created_at, " +
+                            "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", vendorId, "IT " + run, 10, "grocery",
+                            true, now, now);
+        productId = queryLong("SELECT id FROM products WHERE vendor_id = ?", vendorId);
+
+        userIds = new long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            String email = "it-" + run + "-" + i + "@test.local";
+            jdbcTemplate.update("INSERT INTO users (name, email, password, created_at, updated_at) " +
+                                "VALUES (?, ?, ?, ?, ?)", "IT " + i, email, "test", now, now);
+            userIds[i] = queryLong("SELECT id FROM users WHERE email = ?", email);
+        }
+    }
+
+    // database/schema.sql minus its CREATE DATABASE and USE lines
+    private static void createSchema(String serverUrl, String username, String password)
+            throws IOException, SQLException {
+        StringBuilder script = new StringBuilder();
+        for (String line : Files.readAllLines(Path.of("..", "database", "schema.sql"))) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("--") || trimmed.startsWith("CREATE DATABASE") || trimmed.startsWith("USE ")) {
+                continue;
+            }
+            script.append(line).append('\n');
+        }
+        String url = serverUrl + "?useSSL=false&allowPublicKeyRetrieval=true";
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + DATABASE);
+            statement.execute("CREATE DATABASE " + DATABASE);
+            statement.execute("USE " + DATABASE);
+            for (String sql : script.toString().split(";\\s*\n")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+}
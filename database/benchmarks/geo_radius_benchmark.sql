@@ -0,0 +1,94 @@
+-- Radius query benchmark: full-scan haversine vs bounding-box prefilter
+-- Seeds a throwaway users table and compares the query forms GeoRadiusQueryBuilder
+-- generates for UserRepository with a full scan, using EXPLAIN ANALYZE.
+-- Usage: mysql -u root -p < database/benchmarks/geo_radius_benchmark.sql
+
+CREATE DATABASE IF NOT EXISTS bridgethegap_bench;
+USE bridgethegap_bench;
+
+DROP TABLE IF EXISTS users;
+CREATE TABLE users (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    latitude DECIMAL(10, 8),
+    longitude DECIMAL(11, 8),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_location_users ON users(latitude, longitude);
+
+-- 300,000 users spread over India's bounding box. RAND(n) with consecutive
+-- seeds lines the points up, so the coordinates are hashed from n instead.
+SET SESSION cte_max_recursion_depth = 1000000;
+INSERT INTO users (name, email, password, latitude, longitude)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 300000
+)
+SELECT CONCAT('User ', n),
+       CONCAT('user', n, '@bench.local'),
+       'bench',
+       8.0 + CONV(LEFT(MD5(CONCAT('lat', n)), 8), 16, 10) / 4294967295 * 29.0,
+       68.0 + CONV(LEFT(MD5(CONCAT('lng', n)), 8), 16, 10) / 4294967295 * 29.0
+FROM seq;
+ANALYZE TABLE users;
+
+SET @lat = 12.97160000, @lng = 77.59460000, @radius = 10.0, @after = 0;
+SET @dlat = @radius / 111.19492664;
+SET @dlng = DEGREES(ASIN(SIN(@radius / 6371) / COS(RADIANS(@lat))));
+
+-- Full scan: distance evaluated for every row
+EXPLAIN ANALYZE
+SELECT * FROM (
+    SELECT *, (6371 * acos(LEAST(1.0, cos(radians(@lat)) * cos(radians(latitude)) *
+           cos(radians(longitude) - radians(@lng)) + sin(radians(@lat)) *
+           sin(radians(latitude))))) AS distance
+    FROM users
+    WHERE latitude IS NOT NULL AND longitude IS NOT NULL
+) within_radius
+WHERE distance < @radius
+ORDER BY distance;
+
+-- UserRepository.findUsersWithinRadius as GeoRadiusQueryBuilder writes it
+EXPLAIN ANALYZE
+SELECT * FROM (
+    SELECT *, (6371 * acos(LEAST(1.0, cos(radians(@lat)) * cos(radians(latitude)) *
+           cos(radians(longitude) - radians(@lng)) + sin(radians(@lat)) *
+           sin(radians(latitude))))) AS distance
+    FROM users
+    WHERE latitude BETWEEN @lat - @dlat AND @lat + @dlat
+      AND longitude BETWEEN @lng - @dlng AND @lng + @dlng
+) within_radius
+WHERE distance < @radius
+ORDER BY distance;
+
+-- Same comparison for one keyset chunk of findNearbyUsersAfter
+EXPLAIN ANALYZE
+SELECT * FROM (
+    SELECT id, (6371 * acos(LEAST(1.0, cos(radians(@lat)) * cos(radians(latitude)) *
+           cos(radians(longitude) - radians(@lng)) + sin(radians(@lat)) *
+           sin(radians(latitude))))) AS distance
+    FROM users
+    WHERE latitude IS NOT NULL AND longitude IS NOT NULL
+      AND id > @after
+) within_radius
+WHERE distance < @radius
+ORDER BY id
+LIMIT 500;
+
+EXPLAIN ANALYZE
+SELECT * FROM (
+    SELECT id, (6371 * acos(LEAST(1.0, cos(radians(@lat)) * cos(radians(latitude)) *
+           cos(radians(longitude) - radians(@lng)) + sin(radians(@lat)) *
+           sin(radians(latitude))))) AS distance
+    FROM users
+    WHERE latitude BETWEEN @lat - @dlat AND @lat + @dlat
+      AND longitude BETWEEN @lng - @dlng AND @lng + @dlng
+      AND id > @after
+) within_radius
+WHERE distance < @radius
+ORDER BY id
+LIMIT 500;
+
+DROP DATABASE bridgethegap_bench;
@@ -0,0 +1,7 @@
+-- Position write ordering for existing databases (new installs get it from schema.sql).
+-- Run before deploying the version whose LocationPingBuffer writes location_seq.
+
+USE bridgethegapdb;
+
+ALTER TABLE users ADD COLUMN location_seq BIGINT NOT NULL DEFAULT 0 AFTER longitude;
+ALTER TABLE vendors ADD COLUMN location_seq BIGINT NOT NULL DEFAULT 0 AFTER longitude;
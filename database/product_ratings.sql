@@ -0,0 +1,25 @@
+-- Per-product rating totals for existing databases (new installs get them from schema.sql).
+-- Run before deploying the version that reads product_ratings.
+
+USE bridgethegapdb;
+
+CREATE TABLE IF NOT EXISTS product_ratings (
+    product_id BIGINT PRIMARY KEY,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    rating_1 BIGINT NOT NULL DEFAULT 0,
+    rating_2 BIGINT NOT NULL DEFAULT 0,
+    rating_3 BIGINT NOT NULL DEFAULT 0,
+    rating_4 BIGINT NOT NULL DEFAULT 0,
+    rating_5 BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Backfill; POST /api/admin/ratings/rebuild does the same at any later time
+DELETE FROM product_ratings;
+INSERT INTO product_ratings (product_id, rating_sum, review_count, rating_1, rating_2, rating_3, rating_4, rating_5)
+SELECT product_id, SUM(rating), COUNT(*),
+       SUM(rating = 1), SUM(rating = 2), SUM(rating = 3), SUM(rating = 4), SUM(rating = 5)
+FROM reviews
+GROUP BY product_id;
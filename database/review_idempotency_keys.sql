@@ -0,0 +1,12 @@
+-- Idempotency keys of review submissions for existing databases (new installs
+-- get the table from schema.sql). Run before deploying the version that sends
+-- the Idempotency-Key header.
+
+USE bridgethegapdb;
+
+CREATE TABLE IF NOT EXISTS review_idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    review_id BIGINT,
+    created_at DATETIME NOT NULL,
+    INDEX idx_review_idempotency_keys_created_at (created_at)
+);
@@ -0,0 +1,14 @@
+-- Newest-first review timeline indexes for existing databases (new installs get
+-- them from schema.sql). They lead with the same columns as the single-column
+-- indexes they replace, so those are dropped once the new ones exist.
+
+USE bridgethegapdb;
+
+CREATE INDEX idx_reviews_product_timeline ON reviews(product_id, created_at DESC, id DESC);
+CREATE INDEX idx_reviews_user_timeline ON reviews(user_id, created_at DESC, id DESC);
+
+DROP INDEX idx_reviews_product_id ON reviews;
+DROP INDEX idx_reviews_user_id ON reviews;
+
+-- The first page of a product's reviews should read 20 index entries, with no filesort:
+-- EXPLAIN SELECT * FROM reviews WHERE product_id = 1 ORDER BY created_at DESC, id DESC LIMIT 20;
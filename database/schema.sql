@@ -12,6 +12,7 @@ CREATE TABLE users (
     password VARCHAR(255) NOT NULL,
     latitude DECIMAL(10, 8),
     longitude DECIMAL(11, 8),
+    location_seq BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
@@ -25,6 +26,7 @@ CREATE TABLE vendors (
     password VARCHAR(255) NOT NULL,
     latitude DECIMAL(10, 8),
     longitude DECIMAL(11, 8),
+    location_seq BIGINT NOT NULL DEFAULT 0,
     description TEXT,
     phone VARCHAR(20),
     address TEXT,
@@ -61,6 +63,42 @@ CREATE TABLE reviews (
     UNIQUE KEY unique_user_product (user_id, product_id)
 );
 
+-- Per-product review totals, maintained with every review write
+CREATE TABLE product_ratings (
+    product_id BIGINT PRIMARY KEY,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    rating_1 BIGINT NOT NULL DEFAULT 0,
+    rating_2 BIGINT NOT NULL DEFAULT 0,
+    rating_3 BIGINT NOT NULL DEFAULT 0,
+    rating_4 BIGINT NOT NULL DEFAULT 0,
+    rating_5 BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Per-vendor sums of product_ratings, maintained with every review write and product move or delete
+CREATE TABLE vendor_ratings (
+    vendor_id BIGINT PRIMARY KEY,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    rating_1 BIGINT NOT NULL DEFAULT 0,
+    rating_2 BIGINT NOT NULL DEFAULT 0,
+    rating_3 BIGINT NOT NULL DEFAULT 0,
+    rating_4 BIGINT NOT NULL DEFAULT 0,
+    rating_5 BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (vendor_id) REFERENCES vendors(id) ON DELETE CASCADE
+);
+
+-- Idempotency keys of review submissions ("<user id>:<key>"), purged after a day
+CREATE TABLE review_idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    review_id BIGINT,
+    created_at DATETIME NOT NULL,
+    INDEX idx_review_idempotency_keys_created_at (created_at)
+);
+
 -- Admins table
 CREATE TABLE admins (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -78,7 +116,8 @@ CREATE INDEX idx_vendors_email ON vendors(email);
 CREATE INDEX idx_vendors_category ON vendors(category);
 CREATE INDEX idx_products_vendor_id ON products(vendor_id);
 CREATE INDEX idx_products_category ON products(category);
-CREATE INDEX idx_reviews_user_id ON reviews(user_id);
-CREATE INDEX idx_reviews_product_id ON reviews(product_id);
+-- Review timelines (newest first); they also serve the user_id and product_id foreign keys
+CREATE INDEX idx_reviews_product_timeline ON reviews(product_id, created_at DESC, id DESC);
+CREATE INDEX idx_reviews_user_timeline ON reviews(user_id, created_at DESC, id DESC);
 CREATE INDEX idx_location_users ON users(latitude, longitude);
 CREATE INDEX idx_location_vendors ON vendors(latitude, longitude);
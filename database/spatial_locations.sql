@@ -0,0 +1,42 @@
+-- Optional spatial persistence for user locations (MySQL 8.0+), used by the
+-- nearby-users radius queries. Vendors are searched in memory (VendorGeoIndex)
+-- and need no spatial column.
+-- Enable with geo.persistence.mode=spatial once this script has run.
+
+USE bridgethegapdb;
+
+-- Rows without coordinates hold POINT(0 0); radius queries also check latitude IS NOT NULL.
+ALTER TABLE users
+    ADD COLUMN location POINT SRID 4326 NOT NULL DEFAULT (ST_SRID(POINT(0, 0), 4326));
+
+-- Backfill from the DECIMAL columns
+UPDATE users
+SET location = ST_PointFromText(CONCAT('POINT(', longitude, ' ', latitude, ')'), 4326, 'axis-order=long-lat')
+WHERE latitude IS NOT NULL AND longitude IS NOT NULL;
+
+CREATE SPATIAL INDEX idx_spatial_users_location ON users(location);
+
+-- Keep location in sync with latitude/longitude, including the batched ping updates
+DELIMITER //
+
+CREATE TRIGGER trg_users_location_insert BEFORE INSERT ON users
+FOR EACH ROW
+BEGIN
+    IF NEW.latitude IS NOT NULL AND NEW.longitude IS NOT NULL THEN
+        SET NEW.location = ST_PointFromText(CONCAT('POINT(', NEW.longitude, ' ', NEW.latitude, ')'), 4326, 'axis-order=long-lat');
+    ELSE
+        SET NEW.location = ST_SRID(POINT(0, 0), 4326);
+    END IF;
+END//
+
+CREATE TRIGGER trg_users_location_update BEFORE UPDATE ON users
+FOR EACH ROW
+BEGIN
+    IF NEW.latitude IS NOT NULL AND NEW.longitude IS NOT NULL THEN
+        SET NEW.location = ST_PointFromText(CONCAT('POINT(', NEW.longitude, ' ', NEW.latitude, ')'), 4326, 'axis-order=long-lat');
+    ELSE
+        SET NEW.location = ST_SRID(POINT(0, 0), 4326);
+    END IF;
+END//
+
+DELIMITER ;
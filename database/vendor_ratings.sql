@@ -0,0 +1,26 @@
+-- Per-vendor rating rollups for existing databases (new installs get them from schema.sql).
+-- Run after database/product_ratings.sql and before deploying the version that reads vendor_ratings.
+
+USE bridgethegapdb;
+
+CREATE TABLE IF NOT EXISTS vendor_ratings (
+    vendor_id BIGINT PRIMARY KEY,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    rating_1 BIGINT NOT NULL DEFAULT 0,
+    rating_2 BIGINT NOT NULL DEFAULT 0,
+    rating_3 BIGINT NOT NULL DEFAULT 0,
+    rating_4 BIGINT NOT NULL DEFAULT 0,
+    rating_5 BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (vendor_id) REFERENCES vendors(id) ON DELETE CASCADE
+);
+
+-- Backfill; POST /api/admin/ratings/rebuild does the same at any later time
+DELETE FROM vendor_ratings;
+INSERT INTO vendor_ratings (vendor_id, rating_sum, review_count, rating_1, rating_2, rating_3, rating_4, rating_5)
+SELECT p.vendor_id, SUM(pr.rating_sum), SUM(pr.review_count),
+       SUM(pr.rating_1), SUM(pr.rating_2), SUM(pr.rating_3), SUM(pr.rating_4), SUM(pr.rating_5)
+FROM product_ratings pr
+JOIN products p ON p.id = pr.product_id
+GROUP BY p.vendor_id;
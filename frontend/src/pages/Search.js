@@ -554,6 +554,11 @@ const VendorCard = ({ vendor, onVendorClick, onGetDirections }) => {
       <div className="vendor-info">
         <h3>{vendor.name}</h3>
         <p className="vendor-category">{vendor.category}</p>
+        {vendor.rating && vendor.rating.reviewCount > 0 && (
+          <p className="vendor-rating">
+            ★ {vendor.rating.averageRating.toFixed(1)} ({vendor.rating.reviewCount} reviews)
+          </p>
+        )}
         <p className="vendor-email">{vendor.email}</p>
         {vendor.phone && <p className="vendor-phone">📞 {vendor.phone}</p>}
         {vendor.address && <p className="vendor-address">📍 {vendor.address}</p>}
@@ -35,7 +35,7 @@ const UserDashboard = () => {
   const loadProducts = async () => {
     try {
       setLoading(true);
-      const response = await productAPI.getAllProducts();
+      const response = await productAPI.getAllProducts(true);
       setProducts(response.data);
     } catch (err) {
       setError('Failed to load products');
@@ -260,7 +260,13 @@ const ProductCard = ({ product }) => {
   });
 
   useEffect(() => {
-    loadProductRating();
+    // Listings embed the rating; only fall back to a request without it
+    if (product.rating) {
+      setRating(product.rating.averageRating || 0);
+      setReviewCount(product.rating.reviewCount || 0);
+    } else {
+      loadProductRating();
+    }
   }, [product.id]);
 
   const loadProductRating = async () => {
@@ -46,6 +46,7 @@ export const userAPI = {
   updateUser: (id, userData) => api.put(`/users/${id}`, userData),
   deleteUser: (id) => api.delete(`/users/${id}`),
   updateLocation: (id, locationData) => api.put(`/users/${id}/location`, locationData),
+  pingLocation: (id, locationData) => api.put(`/users/${id}/location/ping`, locationData),
   getNearbyUsers: (lat, lng, radius) => api.get(`/users/nearby?latitude=${lat}&longitude=${lng}&radiusKm=${radius}`),
 };
 
@@ -56,7 +57,9 @@ export const vendorAPI = {
   deleteVendor: (id) => api.delete(`/vendors/${id}`),
   getByCategory: (category) => api.get(`/vendors/category/${category}`),
   updateLocation: (id, locationData) => api.put(`/vendors/${id}/location`, locationData),
+  pingLocation: (id, locationData) => api.put(`/vendors/${id}/location/ping`, locationData),
   getNearbyVendors: (lat, lng, radius) => api.get(`/vendors/nearby?latitude=${lat}&longitude=${lng}&radiusKm=${radius}`),
+  getNearestVendors: (lat, lng, k = 20) => api.get(`/vendors/nearest?latitude=${lat}&longitude=${lng}&k=${k}`),
   getNearbyVendorsByCategory: (category, lat, lng, radius) => 
     api.get(`/vendors/nearby/category/${category}?latitude=${lat}&longitude=${lng}&radiusKm=${radius}`),
 };
@@ -64,23 +67,46 @@ export const vendorAPI = {
 // Product API
 export const productAPI = {
   addProduct: (productData) => api.post('/products', productData),
-  getAllProducts: () => api.get('/products'),
+  getAllProducts: (withRatings = false) => api.get(`/products${withRatings ? '?ratings=true' : ''}`),
   getProduct: (id) => api.get(`/products/${id}`),
   updateProduct: (id, productData) => api.put(`/products/${id}`, productData),
   deleteProduct: (id) => api.delete(`/products/${id}`),
   getByVendor: (vendorId) => api.get(`/products/vendor/${vendorId}`),
   getByCategory: (category) => api.get(`/products/category/${category}`),
+  getPopularProducts: (category = '', limit = 50, after = '') =>
+    api.get(category
+      ? `/products/category/${encodeURIComponent(category)}?sort=popular&limit=${limit}&after=${after}`
+      : `/products?sort=popular&limit=${limit}&after=${after}`),
   searchProducts: (query) => api.get(`/products/search?q=${query}`),
+  searchProductsWithFacets: (query, category = '') =>
+    api.get(`/products/search?q=${encodeURIComponent(query)}&category=${encodeURIComponent(category)}&facets=true`),
+  getNearbyProducts: (lat, lng, radius, query = '', category = '') =>
+    api.get(`/products/nearby?latitude=${lat}&longitude=${lng}&radiusKm=${radius}` +
+      `&q=${encodeURIComponent(query)}&category=${encodeURIComponent(category)}`),
+  importProducts: (file, format = 'csv', vendorId = '') =>
+    api.post(`/products/import?format=${format}&vendorId=${vendorId}`, file,
+      { headers: { 'Content-Type': format === 'csv' ? 'text/csv' : 'application/x-ndjson' } }),
+};
+
+// Search API
+export const searchAPI = {
+  suggest: (prefix, limit = 10) => api.get(`/search/suggest?prefix=${encodeURIComponent(prefix)}&limit=${limit}`),
 };
 
 // Review API
 export const reviewAPI = {
-  addReview: (reviewData) => api.post('/reviews', reviewData),
+  addReview: (reviewData, idempotencyKey) => api.post('/reviews', reviewData,
+    idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined),
   getByProduct: (productId) => api.get(`/reviews/product/${productId}`),
   getByUser: (userId) => api.get(`/reviews/user/${userId}`),
+  getProductReviewsPage: (productId, limit = 20, after = '') =>
+    api.get(`/reviews/product/${productId}?limit=${limit}&after=${encodeURIComponent(after)}`),
+  getUserReviewsPage: (userId, limit = 20, after = '') =>
+    api.get(`/reviews/user/${userId}?limit=${limit}&after=${encodeURIComponent(after)}`),
   updateReview: (id, reviewData) => api.put(`/reviews/${id}`, reviewData),
   deleteReview: (id) => api.delete(`/reviews/${id}`),
   getProductRating: (productId) => api.get(`/reviews/product/${productId}/rating`),
+  getProductRatings: (productIds) => api.post('/reviews/ratings', productIds),
 };
 
 // Admin API
@@ -95,6 +121,17 @@ export const adminAPI = {
   deleteReview: (id) => api.delete(`/admin/reviews/${id}`),
   activateProduct: (productId) => api.put(`/admin/products/${productId}/activate`),
   activateVendorProducts: (vendorId) => api.put(`/admin/vendors/${vendorId}/products/activate`),
+  deactivateVendorProducts: (vendorId) => api.put(`/admin/vendors/${vendorId}/products/deactivate`),
+  activateCategoryProducts: (category) =>
+    api.put(`/admin/categories/${encodeURIComponent(category)}/products/activate`),
+  deactivateCategoryProducts: (category) =>
+    api.put(`/admin/categories/${encodeURIComponent(category)}/products/deactivate`),
+  activateProducts: (productIds) => api.put('/admin/products/activate', productIds),
+  deactivateProducts: (productIds) => api.put('/admin/products/deactivate', productIds),
+  deleteReviews: (reviewIds) => api.post('/admin/reviews/delete', reviewIds),
+  rebuildProductRatings: () => api.post('/admin/ratings/rebuild'),
+  exportData: (entity, format = 'ndjson', gzip = false) =>
+    api.get(`/admin/export/${entity}?format=${format}&gzip=${gzip}`, { responseType: 'blob' }),
 };
 
 export default api;